@@ -0,0 +1,86 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smk.example.spring.boot.rest.SpringBootRestExampleApplication;
+
+/**
+ * In-process round trip through the dispatcher servlet (message converters,
+ * validation, controller, service and H2) without the network. MockMvc does
+ * not register the servlet filters of the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookApiBenchmark {
+
+	private ConfigurableApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	private long id;
+
+	@Setup
+	public void setup() throws Exception {
+		context = new SpringApplicationBuilder(SpringBootRestExampleApplication.class)
+				.properties("server.port=0", "logging.level.com.smk=WARN").run();
+		mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+		MvcResult result = mockMvc.perform(post("/books/").contentType(MediaType.APPLICATION_JSON)
+				.content(BookFixtures.bookJson())).andReturn();
+		id = context.getBean(ObjectMapper.class).readTree(result.getResponse().getContentAsByteArray()).get("id")
+				.asLong();
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int getBook() throws Exception {
+		return mockMvc.perform(get("/books/{id}", id).accept(MediaType.APPLICATION_JSON)).andReturn().getResponse()
+				.getStatus();
+	}
+
+	@Benchmark
+	public int createBook() throws Exception {
+		return mockMvc.perform(post("/books/").contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON).content(BookFixtures.bookJson())).andReturn().getResponse()
+				.getStatus();
+	}
+
+	@Benchmark
+	public int patchBook() throws Exception {
+		return mockMvc.perform(patch("/books/patch/{id}", id).contentType("application/json-patch+json")
+				.accept(MediaType.APPLICATION_JSON).content(BookFixtures.JSON_PATCH)).andReturn().getResponse()
+				.getStatus();
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.smk.example.spring.boot.rest.SpringBootRestExampleApplication;
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.service.BookService;
+
+/**
+ * In-process MockMvc round trip of the list endpoints returning whole books
+ * against the same endpoints returning only the id, title and author selected
+ * with {@code fields}. Each benchmark returns the size of the response body,
+ * and the allocation per request shows with {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookFieldsBenchmark {
+
+	private static final String FIELDS = "id,title,author";
+
+	@Param({ "1000" })
+	private int catalogSize;
+
+	@Param({ "100" })
+	private int pageSize;
+
+	private ConfigurableApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	@Setup
+	public void setup() {
+		context = new SpringApplicationBuilder(SpringBootRestExampleApplication.class)
+				.properties("server.port=0", "logging.level.com.smk=WARN").run();
+		mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+		List<Book> catalog = new ArrayList<Book>(catalogSize);
+		for (int i = 0; i < catalogSize; i++)
+			catalog.add(BookFixtures.newBook());
+		context.getBean(BookService.class).saveBooks(catalog);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int getPage() throws Exception {
+		return mockMvc.perform(get("/books").param("size", String.valueOf(pageSize)).accept(MediaType.APPLICATION_JSON))
+				.andReturn().getResponse().getContentLength();
+	}
+
+	@Benchmark
+	public int getPageFields() throws Exception {
+		return mockMvc.perform(get("/books").param("size", String.valueOf(pageSize)).param("fields", FIELDS)
+				.accept(MediaType.APPLICATION_JSON)).andReturn().getResponse().getContentLength();
+	}
+
+	@Benchmark
+	public int getAll() throws Exception {
+		return mockMvc.perform(get("/books/").accept(MediaType.APPLICATION_JSON)).andReturn().getResponse()
+				.getContentLength();
+	}
+
+	@Benchmark
+	public int getAllFields() throws Exception {
+		return mockMvc.perform(get("/books/").param("fields", FIELDS).accept(MediaType.APPLICATION_JSON)).andReturn()
+				.getResponse().getContentLength();
+	}
+
+}
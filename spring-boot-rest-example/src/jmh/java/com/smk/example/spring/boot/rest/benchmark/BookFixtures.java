@@ -0,0 +1,56 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.entity.Book.Format;
+
+final class BookFixtures {
+
+	static final String ISBN = "9780134685991";
+
+	static final String JSON_PATCH = "[{\"op\":\"replace\",\"path\":\"/pages\",\"value\":416}]";
+
+	static final String MERGE_PATCH = "{\"pages\":416}";
+
+	// ISBNs are unique in the catalog, so every new book takes the next one
+	private static final AtomicLong NEXT_ISBN = new AtomicLong();
+
+	private BookFixtures() {
+	}
+
+	static String bookJson() {
+		return "{\"title\":\"Effective Java\",\"author\":\"Joshua Bloch\",\"publicationDate\":\"06/01/2018\","
+				+ "\"publisher\":\"Addison-Wesley\",\"isbn\":\"" + nextIsbn() + "\",\"format\":\"Paperback\",\"pages\":412}";
+	}
+
+	static Book book() {
+		Book book = newBook();
+		book.setId(1L);
+		book.setIsbn(ISBN);
+		book.setVersion(0L);
+		return book;
+	}
+
+	static Book newBook() {
+		Book book = new Book();
+		book.setTitle("Effective Java");
+		book.setAuthor("Joshua Bloch");
+		book.setPublisher("Addison-Wesley");
+		book.setPublicationDate(LocalDate.of(2018, 1, 6));
+		book.setIsbn(nextIsbn());
+		book.setFormat(Format.PAPERBACK);
+		book.setPages(412);
+		return book;
+	}
+
+	static String nextIsbn() {
+		String digits = String.format("979%09d", NEXT_ISBN.incrementAndGet());
+		int sum = 0;
+		for (int i = 0; i < 12; i++)
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		return digits + (10 - sum % 10) % 10;
+	}
+
+}
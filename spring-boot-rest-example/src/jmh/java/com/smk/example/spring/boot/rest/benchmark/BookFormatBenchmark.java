@@ -0,0 +1,159 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.smk.example.spring.boot.rest.SpringBootRestExampleApplication;
+import com.smk.example.spring.boot.rest.config.MessageConvertersConfig;
+import com.smk.example.spring.boot.rest.controller.BookMediaTypes;
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.mapper.BookMapper;
+import com.smk.example.spring.boot.rest.model.BookModel;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookFormatBenchmark {
+
+	private static final int PAGE_SIZE = 100;
+
+	public enum Format {
+		JSON, SMILE, CBOR, PROTOBUF
+	}
+
+	@Param({ "JSON", "SMILE", "CBOR", "PROTOBUF" })
+	public Format format;
+
+	private HttpMessageConverter<Object> converter;
+
+	private MediaType mediaType;
+
+	private ObjectReader pageReader;
+
+	private BookModel bookModel;
+
+	private Page<BookModel> page;
+
+	private byte[] bookBody;
+
+	private byte[] pageBody;
+
+	// the page as a client reads it back, without the pageable and sort that only JSON carries
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class PageDocument {
+		public List<BookModel> content;
+		public long totalElements;
+		public int totalPages;
+		public int number;
+		public int size;
+		public int numberOfElements;
+		public boolean first;
+		public boolean last;
+	}
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() throws IOException {
+		// same converters as the ones of the application's controllers
+		MessageConvertersConfig config = new MessageConvertersConfig();
+		switch (format) {
+		case JSON:
+			converter = (HttpMessageConverter<Object>) (HttpMessageConverter<?>) config
+					.indentingJackson2HttpMessageConverter(new SpringBootRestExampleApplication().objectMapper());
+			mediaType = MediaType.APPLICATION_JSON;
+			pageReader = new SpringBootRestExampleApplication().objectMapper().readerFor(PageDocument.class);
+			break;
+		case SMILE:
+			converter = (HttpMessageConverter<Object>) (HttpMessageConverter<?>) config.smileHttpMessageConverter();
+			mediaType = BookMediaTypes.SMILE;
+			pageReader = SmileMapper.builder().findAndAddModules().build().readerFor(PageDocument.class);
+			break;
+		case CBOR:
+			converter = (HttpMessageConverter<Object>) (HttpMessageConverter<?>) config.cborHttpMessageConverter();
+			mediaType = MediaType.APPLICATION_CBOR;
+			pageReader = CBORMapper.builder().findAndAddModules().build().readerFor(PageDocument.class);
+			break;
+		case PROTOBUF:
+			converter = config.bookProtobufHttpMessageConverter();
+			mediaType = BookMediaTypes.PROTOBUF;
+			try (InputStream proto = new ClassPathResource("book.proto").getInputStream()) {
+				pageReader = ProtobufMapper.builder().findAndAddModules().build().readerFor(PageDocument.class)
+						.with(ProtobufSchemaLoader.std.loadNative(proto, true).forType("BookPage"));
+			}
+			break;
+		}
+		BookMapper bookMapper = new BookMapper();
+		bookModel = bookMapper.toModel(BookFixtures.book());
+		List<BookModel> content = new ArrayList<BookModel>(PAGE_SIZE);
+		for (long id = 1; id <= PAGE_SIZE; id++) {
+			Book book = BookFixtures.newBook();
+			book.setId(id);
+			book.setVersion(0L);
+			content.add(bookMapper.toModel(book));
+		}
+		page = new PageImpl<BookModel>(content, PageRequest.of(0, PAGE_SIZE), 10 * PAGE_SIZE);
+		bookBody = write(bookModel);
+		pageBody = write(page);
+		System.out.printf("%n%s: book %d bytes, page of %d books %d bytes%n", format, bookBody.length, PAGE_SIZE,
+				pageBody.length);
+	}
+
+	@Benchmark
+	public byte[] encodeBook() throws IOException {
+		return write(bookModel);
+	}
+
+	@Benchmark
+	public Object decodeBook() throws IOException {
+		return converter.read(BookModel.class, new MockHttpInputMessage(bookBody));
+	}
+
+	@Benchmark
+	public byte[] encodePage() throws IOException {
+		return write(page);
+	}
+
+	@Benchmark
+	public PageDocument decodePage() throws IOException {
+		return pageReader.readValue(pageBody);
+	}
+
+	private byte[] write(Object body) throws IOException {
+		MockHttpOutputMessage message = new MockHttpOutputMessage();
+		converter.write(body, mediaType, message);
+		return message.getBodyAsBytes();
+	}
+
+}
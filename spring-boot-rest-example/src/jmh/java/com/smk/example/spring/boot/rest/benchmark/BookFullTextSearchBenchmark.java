@@ -0,0 +1,122 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.search.mapper.orm.Search;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.smk.example.spring.boot.rest.SpringBootRestExampleApplication;
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.service.BookService;
+
+/**
+ * Latency distribution of the full-text search of BookService, including the
+ * loading of the first page of books, on a catalog of generated titles,
+ * authors and publishers. The catalog is inserted with JDBC and then mass
+ * indexed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookFullTextSearchBenchmark {
+
+	private static final String[] SYLLABLES = { "ka", "lo", "mi", "ne", "ru", "sa", "ti", "vo", "ze", "bri", "dan", "fel", "gor", "hun",
+			"jas", "kel", "mar", "nor", "pel", "quin", "ros", "sel", "tor", "val", "wen" };
+
+	private static final PageRequest FIRST_PAGE = PageRequest.of(0, 20);
+
+	@Param({ "1000000" })
+	private int rows;
+
+	private ConfigurableApplicationContext context;
+
+	private BookService bookService;
+
+	private String[] words;
+
+	@Setup
+	public void setup() throws InterruptedException {
+		context = new SpringApplicationBuilder(SpringBootRestExampleApplication.class).web(WebApplicationType.NONE)
+				.properties("logging.level.com.smk=WARN", "springdoc.api-docs.enabled=false").run();
+		bookService = context.getBean(BookService.class);
+		Random random = new Random(42);
+		words = new String[5000];
+		for (int i = 0; i < words.length; i++)
+			words[i] = SYLLABLES[random.nextInt(SYLLABLES.length)] + SYLLABLES[random.nextInt(SYLLABLES.length)]
+					+ SYLLABLES[random.nextInt(SYLLABLES.length)];
+		JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		Date published = Date.valueOf(LocalDate.of(2018, 6, 1));
+		List<Object[]> batch = new ArrayList<Object[]>(10000);
+		for (int i = 1; i <= rows; i++) {
+			batch.add(new Object[] { i, now, now, word(random) + " " + word(random), word(random) + " " + word(random) + " " + word(random),
+					"PAPERBACK", String.format("978%010d", i), 100, published, word(random) + " Press" });
+			if (batch.size() == 10000 || i == rows) {
+				jdbcTemplate.batchUpdate("insert into book (id, created_date, updated_date, author, title, format, isbn, pages, "
+						+ "publication_date, publisher, version) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", batch);
+				batch.clear();
+			}
+		}
+		Search.mapping(context.getBean(EntityManagerFactory.class)).scope(Book.class).massIndexer().startAndWait();
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Page<Book> searchWord() {
+		return bookService.searchBooks(word(ThreadLocalRandom.current()), FIRST_PAGE);
+	}
+
+	@Benchmark
+	public Page<Book> searchPrefix() {
+		return bookService.searchBooks(word(ThreadLocalRandom.current()).substring(0, 4), FIRST_PAGE);
+	}
+
+	@Benchmark
+	public Page<Book> searchTypo() {
+		String word = word(ThreadLocalRandom.current());
+		return bookService.searchBooks(word.substring(0, 2) + word.substring(3), FIRST_PAGE);
+	}
+
+	@Benchmark
+	public Page<Book> searchTwoWords() {
+		return bookService.searchBooks(word(ThreadLocalRandom.current()) + " " + word(ThreadLocalRandom.current()), FIRST_PAGE);
+	}
+
+	private String word(Random random) {
+		return words[random.nextInt(words.length)];
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import com.smk.example.spring.boot.rest.SpringBootRestExampleApplication;
+import com.smk.example.spring.boot.rest.entity.BookImport;
+import com.smk.example.spring.boot.rest.model.BookImportStatus;
+import com.smk.example.spring.boot.rest.service.BookImporter;
+
+/**
+ * One bulk import of a file of new books per invocation, from the start of the
+ * import to its completion, by number of parser threads. Each iteration writes
+ * a new file, since the ISBNs of the catalog are unique. Each benchmark returns
+ * the number of imported books.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BookImportBenchmark {
+
+	@Param({ "20000" })
+	private int rows;
+
+	@Param({ "CSV", "NDJSON" })
+	private BookImport.Format format;
+
+	@Param({ "1", "4" })
+	private int parallelism;
+
+	private Path directory;
+
+	private ConfigurableApplicationContext context;
+
+	private BookImporter bookImporter;
+
+	private String path;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("book-import");
+		context = new SpringApplicationBuilder(SpringBootRestExampleApplication.class)
+				.properties("server.port=0", "logging.level.com.smk=WARN")
+				.run("--book.import.directory=" + directory, "--book.import.parallelism=" + parallelism);
+		bookImporter = context.getBean(BookImporter.class);
+	}
+
+	@Setup(Level.Iteration)
+	public void writeFile() throws IOException {
+		Path file = Files.createTempFile(directory, "books", format == BookImport.Format.CSV ? ".csv" : ".ndjson");
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			if (format == BookImport.Format.CSV)
+				writer.write("title,author,publicationDate,publisher,isbn,format,pages\n");
+			for (int i = 0; i < rows; i++) {
+				if (format == BookImport.Format.CSV)
+					writer.write("Effective Java,Joshua Bloch,06/01/2018,Addison-Wesley," + BookFixtures.nextIsbn()
+							+ ",Paperback,412\n");
+				else
+					writer.write(BookFixtures.bookJson() + "\n");
+			}
+		}
+		path = file.getFileName().toString();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		context.close();
+		FileSystemUtils.deleteRecursively(directory);
+	}
+
+	@Benchmark
+	public long importFile() throws InterruptedException {
+		BookImportStatus status = bookImporter.startImport(path, format);
+		while (status.getState() == BookImport.State.RUNNING) {
+			Thread.sleep(10);
+			status = bookImporter.getImportStatus(status.getId());
+		}
+		if (status.getState() != BookImport.State.COMPLETED || status.getRejected() > 0)
+			throw new IllegalStateException("Import failed: " + status);
+		return status.getImported();
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smk.example.spring.boot.rest.SpringBootRestExampleApplication;
+import com.smk.example.spring.boot.rest.mapper.BookMapper;
+import com.smk.example.spring.boot.rest.model.BookModel;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookJsonBenchmark {
+
+	private ObjectMapper objectMapper;
+
+	private BookModel bookModel;
+
+	private byte[] bookJson;
+
+	@Setup
+	public void setup() throws JsonProcessingException {
+		// same ObjectMapper as the one used by the application's message converters
+		objectMapper = new SpringBootRestExampleApplication().objectMapper();
+		bookModel = new BookMapper().toModel(BookFixtures.book());
+		bookJson = objectMapper.writeValueAsBytes(bookModel);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(bookModel);
+	}
+
+	@Benchmark
+	public BookModel deserialize() throws IOException {
+		return objectMapper.readValue(bookJson, BookModel.class);
+	}
+
+}
@@ -0,0 +1,134 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.smk.example.spring.boot.rest.SpringBootRestExampleApplication;
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.service.BookService;
+
+/**
+ * Burst load over HTTP with more concurrent clients than container threads,
+ * comparing handlers run on the container threads (SERVLET), handlers run on
+ * the bounded executor (ASYNC) and the WebFlux and R2DBC variant (REACTIVE).
+ * Requests refused with 503 are counted separately from those served. Run it
+ * with a fixed number of cores (e.g. {@code taskset}) to compare per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class BookLoadBenchmark {
+
+	@Param({ "SERVLET", "ASYNC", "REACTIVE" })
+	private String executionMode;
+
+	@Param({ "16" })
+	private int containerThreads;
+
+	@Param({ "1000" })
+	private int catalogSize;
+
+	private ConfigurableApplicationContext context;
+
+	private HttpClient client;
+
+	private URI books;
+
+	@Setup
+	public void setup() {
+		SpringApplicationBuilder builder = new SpringApplicationBuilder(SpringBootRestExampleApplication.class)
+				.properties("server.port=0", "server.tomcat.threads.max=" + containerThreads,
+						"logging.level.com.smk=WARN", "logging.level.org.springframework.web=WARN");
+		if ("REACTIVE".equals(executionMode)) {
+			builder.profiles("reactive").web(WebApplicationType.REACTIVE);
+			context = builder.run();
+		} else {
+			// an argument, since application.properties overrides the default properties of the builder
+			context = builder.run("--book.execution.mode=" + executionMode);
+		}
+		List<Book> catalog = new ArrayList<Book>(catalogSize);
+		for (int i = 0; i < catalogSize; i++)
+			catalog.add(BookFixtures.newBook());
+		context.getBean(BookService.class).saveBooks(catalog);
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		books = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/books");
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Outcomes {
+
+		public long served;
+
+		public long rejected;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			served = 0;
+			rejected = 0;
+		}
+
+		void count(int status) {
+			if (status == 503)
+				rejected++;
+			else
+				served++;
+		}
+
+	}
+
+	@Benchmark
+	public int getPage(Outcomes outcomes) throws Exception {
+		int page = ThreadLocalRandom.current().nextInt(catalogSize / 20);
+		HttpRequest request = HttpRequest.newBuilder(URI.create(books + "?page=" + page + "&size=20"))
+				.header("Accept", "application/json").build();
+		int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+		outcomes.count(status);
+		return status;
+	}
+
+	@Benchmark
+	public int createBook(Outcomes outcomes) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(books + "/"))
+				.header("Content-Type", "application/json").header("Accept", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(BookFixtures.bookJson())).build();
+		int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+		outcomes.count(status);
+		return status;
+	}
+
+}
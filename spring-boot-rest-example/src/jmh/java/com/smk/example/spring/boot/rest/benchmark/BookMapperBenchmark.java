@@ -0,0 +1,69 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.mapper.BookMapper;
+import com.smk.example.spring.boot.rest.model.BookModel;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMapperBenchmark {
+
+	private BookMapper bookMapper;
+
+	private Book book;
+
+	private BookModel bookModel;
+
+	@Setup
+	public void setup() {
+		bookMapper = new BookMapper();
+		book = BookFixtures.book();
+		bookModel = bookMapper.toModel(book);
+	}
+
+	@Benchmark
+	public BookModel toModelPerCallModelMapper() {
+		ModelMapper modelMapper = new ModelMapper();
+		return modelMapper.map(book, BookModel.class);
+	}
+
+	@Benchmark
+	public BookModel toModelSharedMapper() {
+		return bookMapper.toModel(book);
+	}
+
+	@Benchmark
+	public Book toEntityPerCallModelMapper() {
+		ModelMapper modelMapper = new ModelMapper();
+		modelMapper.typeMap(BookModel.class, Book.class).addMappings(mapper -> {
+			mapper.skip(Book::setId);
+		});
+		Book target = new Book();
+		modelMapper.map(bookModel, target);
+		return target;
+	}
+
+	@Benchmark
+	public Book toEntitySharedMapper() {
+		return bookMapper.toEntity(bookModel, new Book());
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonMergePatch;
+import javax.json.JsonPatch;
+import javax.json.JsonReader;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smk.example.spring.boot.rest.SpringBootRestExampleApplication;
+import com.smk.example.spring.boot.rest.mapper.BookMapper;
+import com.smk.example.spring.boot.rest.model.BookModel;
+import com.smk.example.spring.boot.rest.patch.BookPatchCompiler;
+
+/**
+ * Measures JSON Patch and JSON Merge Patch application from payload parsing to
+ * the patched BookModel, through a javax.json tree of the model and through
+ * the BookPatchCompiler used by BookController.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookPatchBenchmark {
+
+	private ObjectMapper objectMapper;
+
+	private BookPatchCompiler bookPatchCompiler;
+
+	private BookModel bookModel;
+
+	private byte[] jsonPatch;
+
+	private byte[] mergePatch;
+
+	@Setup
+	public void setup() {
+		objectMapper = new SpringBootRestExampleApplication().objectMapper();
+		bookPatchCompiler = new BookPatchCompiler(objectMapper);
+		bookModel = new BookMapper().toModel(BookFixtures.book());
+		jsonPatch = BookFixtures.JSON_PATCH.getBytes(StandardCharsets.UTF_8);
+		mergePatch = BookFixtures.MERGE_PATCH.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public BookModel jsonPatch() {
+		JsonPatch patchDocument;
+		try (JsonReader reader = Json.createReader(new StringReader(BookFixtures.JSON_PATCH))) {
+			patchDocument = Json.createPatch(reader.readArray());
+		}
+		JsonStructure target = objectMapper.convertValue(bookModel, JsonStructure.class);
+		JsonValue patched = patchDocument.apply(target);
+		return objectMapper.convertValue(patched, BookModel.class);
+	}
+
+	@Benchmark
+	public BookModel mergePatch() {
+		JsonMergePatch patchDocument;
+		try (JsonReader reader = Json.createReader(new StringReader(BookFixtures.MERGE_PATCH))) {
+			patchDocument = Json.createMergePatch(reader.readValue());
+		}
+		JsonStructure target = objectMapper.convertValue(bookModel, JsonStructure.class);
+		JsonValue patched = patchDocument.apply(target);
+		return objectMapper.convertValue(patched, BookModel.class);
+	}
+
+	@Benchmark
+	public BookModel jsonPatchCompiled() {
+		bookPatchCompiler.compileJsonPatch(new ByteArrayInputStream(jsonPatch)).apply(bookModel);
+		return bookModel;
+	}
+
+	@Benchmark
+	public BookModel mergePatchCompiled() {
+		bookPatchCompiler.compileMergePatch(new ByteArrayInputStream(mergePatch)).apply(bookModel);
+		return bookModel;
+	}
+
+}
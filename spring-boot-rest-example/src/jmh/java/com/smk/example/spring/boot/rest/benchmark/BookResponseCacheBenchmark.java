@@ -0,0 +1,104 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.DefaultMockMvcBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.smk.example.spring.boot.rest.SpringBootRestExampleApplication;
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.service.BookService;
+
+/**
+ * In-process MockMvc round trip of the list endpoints with and without the
+ * cache of encoded responses. The catalog does not change between calls, so
+ * with the cache every call after the first is a hit. Each benchmark returns
+ * the size of the response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookResponseCacheBenchmark {
+
+	@Param({ "1000" })
+	private int catalogSize;
+
+	@Param({ "100" })
+	private int pageSize;
+
+	@Param({ "false", "true" })
+	private boolean responseCache;
+
+	private ConfigurableApplicationContext context;
+
+	private MockMvc mockMvc;
+
+	@Setup
+	public void setup() {
+		context = new SpringApplicationBuilder(SpringBootRestExampleApplication.class)
+				.properties("server.port=0", "logging.level.com.smk=WARN")
+				.run("--book.response-cache.enabled=" + responseCache);
+		DefaultMockMvcBuilder builder = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context);
+		// MockMvc does not go through the filters registered with the container
+		if (responseCache)
+			builder.addFilters((Filter) context.getBean("bookResponseCacheFilter", FilterRegistrationBean.class).getFilter());
+		mockMvc = builder.build();
+		List<Book> catalog = new ArrayList<Book>(catalogSize);
+		for (int i = 0; i < catalogSize; i++)
+			catalog.add(BookFixtures.newBook());
+		context.getBean(BookService.class).saveBooks(catalog);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int getPage() throws Exception {
+		return mockMvc.perform(get("/books").param("size", String.valueOf(pageSize)).accept(MediaType.APPLICATION_JSON))
+				.andReturn().getResponse().getContentLength();
+	}
+
+	@Benchmark
+	public int getAll() throws Exception {
+		return mockMvc.perform(get("/books/").accept(MediaType.APPLICATION_JSON)).andReturn().getResponse()
+				.getContentLength();
+	}
+
+	// without the cache the body is not compressed here, the container compresses it on the way out
+	@Benchmark
+	public int getAllGzip() throws Exception {
+		return mockMvc.perform(get("/books/").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+				.andReturn().getResponse().getContentLength();
+	}
+
+}
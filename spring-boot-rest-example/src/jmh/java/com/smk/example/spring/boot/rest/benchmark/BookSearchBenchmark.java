@@ -0,0 +1,96 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.smk.example.spring.boot.rest.SpringBootRestExampleApplication;
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.model.BookModel;
+import com.smk.example.spring.boot.rest.repository.BookRepository;
+
+/**
+ * Title and title/author search through BookRepository on the schema generated
+ * by Hibernate, with and without the indexes declared on the Book entity, as a
+ * BookModel projection and as an entity. The rows are inserted with SQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSearchBenchmark {
+
+	private static final int AUTHORS = 1000;
+
+	@Param({ "1000000" })
+	private int rows;
+
+	@Param({ "false", "true" })
+	private boolean indexed;
+
+	private ConfigurableApplicationContext context;
+
+	private BookRepository bookRepository;
+
+	@Setup
+	public void setup() {
+		context = new SpringApplicationBuilder(SpringBootRestExampleApplication.class).web(WebApplicationType.NONE)
+				.properties("logging.level.com.smk=WARN", "springdoc.api-docs.enabled=false").run();
+		bookRepository = context.getBean(BookRepository.class);
+		JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+		if (!indexed) {
+			// the indexes that a search by title, or by title and author, could use
+			jdbcTemplate.execute("drop index if exists idx_book_title");
+			jdbcTemplate.execute("drop index if exists idx_book_title_author");
+			jdbcTemplate.execute("drop index if exists idx_book_author");
+		}
+		jdbcTemplate.execute("insert into book (id, created_date, updated_date, author, format, isbn, normalized_isbn, pages, "
+				+ "publication_date, publisher, title, version) select x, current_timestamp, current_timestamp, 'Author ' || mod(x, "
+				+ AUTHORS + "), 'PAPERBACK', null, null, 100, current_date, 'Publisher', 'Title ' || x, 0 from system_range(1, "
+				+ rows + ")");
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Optional<BookModel> searchByTitle() {
+		int x = ThreadLocalRandom.current().nextInt(1, rows + 1);
+		return bookRepository.findModelByTitle("Title " + x);
+	}
+
+	@Benchmark
+	public Optional<BookModel> searchByTitleAndAuthor() {
+		int x = ThreadLocalRandom.current().nextInt(1, rows + 1);
+		return bookRepository.findModelByTitleAndAuthor("Title " + x, "Author " + (x % AUTHORS));
+	}
+
+	// the entity query, for comparison with the projection
+	@Benchmark
+	public Optional<Book> loadByTitleAndAuthor() {
+		int x = ThreadLocalRandom.current().nextInt(1, rows + 1);
+		return bookRepository.findByTitleAndAuthor("Title " + x, "Author " + (x % AUTHORS));
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.mapper.BookMapper;
+import com.smk.example.spring.boot.rest.model.BookModel;
+import com.smk.example.spring.boot.rest.validation.Isbns;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookValidationBenchmark {
+
+	// the @Pattern regular expression that @Isbn replaced, kept as the baseline
+	private static final String ISBN_REGEX = "^(?:ISBN(?:-1[03])?:? )?(?=[0-9X]{10}$|(?=(?:[0-9]+[- ]){3})[- 0-9X]{13}$|97[89][0-9]{10}$|"
+			+ "(?=(?:[0-9]+[- ]){4})[- 0-9]{17}$)(?:97[89][- ]?)?[0-9]{1,5}[- ]?[0-9]+[- ]?[0-9]+[- ]?[0-9X]$";
+
+	@Param({ "9780134685991", "978-0-13-468599-1", "ISBN-10: 0-306-40615-2" })
+	private String isbn;
+
+	private ValidatorFactory validatorFactory;
+
+	private Validator validator;
+
+	private Book book;
+
+	private BookModel bookModel;
+
+	private Pattern isbnPattern;
+
+	@Setup
+	public void setup() {
+		validatorFactory = Validation.buildDefaultValidatorFactory();
+		validator = validatorFactory.getValidator();
+		book = BookFixtures.book();
+		book.setIsbn(isbn);
+		bookModel = new BookMapper().toModel(book);
+		isbnPattern = Pattern.compile(ISBN_REGEX);
+	}
+
+	@TearDown
+	public void tearDown() {
+		validatorFactory.close();
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<BookModel>> validateModel() {
+		return validator.validate(bookModel);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<Book>> validateEntity() {
+		return validator.validate(book);
+	}
+
+	@Benchmark
+	public boolean isbnPattern() {
+		return isbnPattern.matcher(bookModel.getIsbn()).matches();
+	}
+
+	@Benchmark
+	public boolean isbnValidator() {
+		return Isbns.isValid(bookModel.getIsbn());
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.smk.example.spring.boot.rest.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.smk.example.spring.boot.rest.SpringBootRestExampleApplication;
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.service.BookService;
+
+/**
+ * Write throughput of BookService for each flush strategy, for single saves
+ * and for bulk saves sharing one transaction.
+ * <p>
+ * The books are saved without going through a controller, so with
+ * {@code BOUNDARY} validation they are not validated at all and the difference
+ * with {@code BOTH} is the cost of the entity validation saved on each write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookWriteBenchmark {
+
+	@Param({ "COMMIT", "IMMEDIATE" })
+	private String flushStrategy;
+
+	@Param({ "BOUNDARY", "BOTH" })
+	private String validation;
+
+	@Param({ "100" })
+	private int bulkSize;
+
+	private ConfigurableApplicationContext context;
+
+	private BookService bookService;
+
+	private Book book;
+
+	@Setup
+	public void setup() {
+		context = new SpringApplicationBuilder(SpringBootRestExampleApplication.class).web(WebApplicationType.NONE)
+				.properties("logging.level.com.smk=WARN",
+						// the HATEOAS support of springdoc needs a web application
+						"springdoc.api-docs.enabled=false")
+				// arguments, since application.properties overrides the default properties of the builder
+				.run("--book.write.flush-strategy=" + flushStrategy, "--book.write.validation=" + validation);
+		bookService = context.getBean(BookService.class);
+		book = bookService.saveBook(BookFixtures.newBook());
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Book createBook() {
+		return bookService.saveBook(BookFixtures.newBook());
+	}
+
+	@Benchmark
+	public Book updateBook() {
+		book.setPages(book.getPages() + 1);
+		book = bookService.saveBook(book);
+		return book;
+	}
+
+	@Benchmark
+	public List<Book> createBooks() {
+		List<Book> books = new ArrayList<Book>(bulkSize);
+		for (int i = 0; i < bulkSize; i++)
+			books.add(BookFixtures.newBook());
+		return bookService.saveBooks(books);
+	}
+
+}
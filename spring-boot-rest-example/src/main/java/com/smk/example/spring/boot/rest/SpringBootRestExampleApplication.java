@@ -7,7 +7,9 @@ import javax.json.JsonPatch;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -23,6 +25,8 @@ import io.swagger.v3.oas.models.media.StringSchema;
 
 @SpringBootApplication
 @EnableJpaAuditing
+// caching advice wraps the transactional advice so that evictions happen after commit
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
 public class SpringBootRestExampleApplication {
 
 	public static void main(String[] args) {
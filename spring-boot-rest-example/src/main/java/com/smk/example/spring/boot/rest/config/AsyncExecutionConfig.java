@@ -0,0 +1,31 @@
+package com.smk.example.spring.boot.rest.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+/**
+ * Runs controller handlers on a bounded executor sized to the connection pool
+ * when {@code book.execution.mode} is {@code ASYNC}, so that container threads
+ * are not held while handlers wait on JDBC.
+ */
+@Configuration
+@ConditionalOnProperty(name = "book.execution.mode", havingValue = "ASYNC")
+public class AsyncExecutionConfig {
+
+	@Bean
+	public WebMvcRegistrations offloadingWebMvcRegistrations(@Value("${book.execution.pool-size}") int poolSize,
+			@Value("${book.execution.queue-capacity}") int queueCapacity,
+			@Value("${book.execution.timeout}") long timeout, @Value("${book.execution.retry-after}") long retryAfter) {
+		return new WebMvcRegistrations() {
+			@Override
+			public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+				return new OffloadingRequestMappingHandlerAdapter(poolSize, queueCapacity, timeout, retryAfter);
+			}
+		};
+	}
+
+}
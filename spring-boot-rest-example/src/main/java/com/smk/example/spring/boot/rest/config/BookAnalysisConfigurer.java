@@ -0,0 +1,44 @@
+package com.smk.example.spring.boot.rest.config;
+
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
+import org.apache.lucene.analysis.ngram.EdgeNGramFilterFactory;
+import org.apache.lucene.analysis.pattern.PatternReplaceCharFilterFactory;
+import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurationContext;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurer;
+
+/**
+ * Analyzers of the full-text index of books, registered through the
+ * {@code hibernate.search.backend.analysis.configurer} property.
+ * <p>
+ * Words are lower-cased and stripped of accents. The {@code book_prefix}
+ * analyzer also indexes the leading characters of each word, so that a prefix
+ * is matched as a plain term instead of with a wildcard query.
+ */
+public class BookAnalysisConfigurer implements LuceneAnalysisConfigurer {
+
+	public static final String BOOK = "book";
+
+	public static final String BOOK_PREFIX = "book_prefix";
+
+	public static final String ISBN = "isbn";
+
+	@Override
+	public void configure(LuceneAnalysisConfigurationContext context) {
+		context.analyzer(BOOK).custom()
+				.tokenizer(StandardTokenizerFactory.class)
+				.tokenFilter(LowerCaseFilterFactory.class)
+				.tokenFilter(ASCIIFoldingFilterFactory.class);
+		context.analyzer(BOOK_PREFIX).custom()
+				.tokenizer(StandardTokenizerFactory.class)
+				.tokenFilter(LowerCaseFilterFactory.class)
+				.tokenFilter(ASCIIFoldingFilterFactory.class)
+				.tokenFilter(EdgeNGramFilterFactory.class).param("minGramSize", "2").param("maxGramSize", "15");
+		// hyphens and spaces are only grouping separators in an ISBN
+		context.normalizer(ISBN).custom()
+				.charFilter(PatternReplaceCharFilterFactory.class).param("pattern", "[- ]").param("replacement", "")
+				.tokenFilter(LowerCaseFilterFactory.class);
+	}
+
+}
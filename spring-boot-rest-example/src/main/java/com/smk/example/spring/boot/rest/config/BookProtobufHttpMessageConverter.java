@@ -0,0 +1,107 @@
+package com.smk.example.spring.boot.rest.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import com.smk.example.spring.boot.rest.controller.BookMediaTypes;
+import com.smk.example.spring.boot.rest.errorhandling.ErrorResponse;
+import com.smk.example.spring.boot.rest.model.BookModel;
+import com.smk.example.spring.boot.rest.model.BookView;
+
+/**
+ * Reads and writes books as Protobuf messages of {@code book.proto}: a book,
+ * or a view of it, as {@code Book}, a page of them as {@code BookPage} and
+ * errors as {@code Error}. Jackson maps the objects as for JSON, so the
+ * messages carry the same properties in the same formats.
+ */
+public class BookProtobufHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+	private final ProtobufMapper mapper;
+
+	private final ProtobufSchema bookSchema;
+
+	private final ProtobufSchema pageSchema;
+
+	private final ProtobufSchema errorSchema;
+
+	public BookProtobufHttpMessageConverter() throws IOException {
+		super(BookMediaTypes.PROTOBUF);
+		// properties missing from the messages are left out rather than failing the response
+		this.mapper = ProtobufMapper.builder().findAndAddModules().enable(JsonGenerator.Feature.IGNORE_UNKNOWN)
+				.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET).build();
+		NativeProtobufSchema schema;
+		try (InputStream proto = new ClassPathResource("book.proto").getInputStream()) {
+			schema = ProtobufSchemaLoader.std.loadNative(proto, true);
+		}
+		this.bookSchema = schema.forType("Book");
+		this.pageSchema = schema.forType("BookPage");
+		this.errorSchema = schema.forType("Error");
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return schemaFor(clazz) != null;
+	}
+
+	// pages are only written, there is no representation of a page to read
+	@Override
+	public boolean canRead(Class<?> clazz, MediaType mediaType) {
+		return BookModel.class.isAssignableFrom(clazz) && canRead(mediaType);
+	}
+
+	@Override
+	protected Object readInternal(Class<? extends Object> clazz, HttpInputMessage inputMessage) throws IOException {
+		try {
+			return mapper.readerFor(clazz).with(bookSchema).readValue(inputMessage.getBody());
+		} catch (IOException exception) {
+			throw new HttpMessageNotReadableException("Malformed Protobuf message: " + exception.getMessage(), exception,
+					inputMessage);
+		}
+	}
+
+	@Override
+	protected void writeInternal(Object object, HttpOutputMessage outputMessage) throws IOException {
+		// the pageable and sort of a page are objects, which the mapper cannot leave out, so only the message properties are written
+		Object message = object instanceof Page ? pageMessage((Page<?>) object) : object;
+		mapper.writer(schemaFor(object.getClass())).writeValue(outputMessage.getBody(), message);
+	}
+
+	private static Map<String, Object> pageMessage(Page<?> page) {
+		Map<String, Object> message = new LinkedHashMap<String, Object>();
+		message.put("content", page.getContent());
+		message.put("totalElements", page.getTotalElements());
+		message.put("totalPages", page.getTotalPages());
+		message.put("number", page.getNumber());
+		message.put("size", page.getSize());
+		message.put("numberOfElements", page.getNumberOfElements());
+		message.put("first", page.isFirst());
+		message.put("last", page.isLast());
+		return message;
+	}
+
+	private ProtobufSchema schemaFor(Class<?> clazz) {
+		if (Page.class.isAssignableFrom(clazz))
+			return pageSchema;
+		if (ErrorResponse.class.isAssignableFrom(clazz))
+			return errorSchema;
+		if (BookModel.class.isAssignableFrom(clazz) || BookView.class.isAssignableFrom(clazz))
+			return bookSchema;
+		return null;
+	}
+
+}
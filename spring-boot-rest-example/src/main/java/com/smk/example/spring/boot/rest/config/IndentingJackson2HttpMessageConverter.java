@@ -0,0 +1,49 @@
+package com.smk.example.spring.boot.rest.config;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes compact JSON, except to browsers, whose Accept header includes
+ * {@code text/html}, and to requests with a {@code pretty} parameter, which get
+ * it indented.
+ */
+public class IndentingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+	public IndentingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+		super(objectMapper);
+	}
+
+	// the writer leaves the pretty printer of the generator as it is when indentation is not enabled on the mapper
+	@Override
+	protected void writePrefix(JsonGenerator generator, Object object) throws IOException {
+		super.writePrefix(generator, object);
+		if (isIndentationRequested())
+			generator.useDefaultPrettyPrinter();
+	}
+
+	// bodies are written on the thread dispatching the request, asynchronous results included
+	private static boolean isIndentationRequested() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (!(attributes instanceof ServletRequestAttributes))
+			return false;
+		HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+		String pretty = request.getParameter("pretty");
+		if (pretty != null)
+			return !"false".equals(pretty);
+		String accept = request.getHeader(HttpHeaders.ACCEPT);
+		return accept != null && accept.contains(MediaType.TEXT_HTML_VALUE);
+	}
+
+}
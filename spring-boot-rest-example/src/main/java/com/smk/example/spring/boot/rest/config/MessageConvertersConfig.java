@@ -0,0 +1,73 @@
+package com.smk.example.spring.boot.rest.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+/**
+ * Message converters of the REST controllers, which Spring Boot adds to its
+ * defaults in place of those of the same type. Smile and CBOR use mappers
+ * built like the application's ObjectMapper, so all formats carry the same
+ * properties.
+ * <p>
+ * The Protobuf converter is not a bean, which Spring Boot would put ahead of
+ * the defaults: it is appended after them, so that JSON stays the first
+ * representation of handlers without produces conditions, such as the error
+ * responses, for clients accepting any type.
+ * <p>
+ * Responses of handlers that negotiate between several of these types vary by
+ * their Accept header.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class MessageConvertersConfig implements WebMvcConfigurer {
+
+	@Bean
+	public MappingJackson2HttpMessageConverter indentingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+		return new IndentingJackson2HttpMessageConverter(objectMapper);
+	}
+
+	@Bean
+	public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+		return new MappingJackson2SmileHttpMessageConverter(SmileMapper.builder().findAndAddModules().build());
+	}
+
+	@Bean
+	public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+		return new MappingJackson2CborHttpMessageConverter(CBORMapper.builder().findAndAddModules().build());
+	}
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.add(bookProtobufHttpMessageConverter());
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new VaryByAcceptInterceptor());
+	}
+
+	public BookProtobufHttpMessageConverter bookProtobufHttpMessageConverter() {
+		try {
+			return new BookProtobufHttpMessageConverter();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.smk.example.spring.boot.rest.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Records the methods annotated with {@link io.micrometer.core.annotation.Timed}
+ * as timers, tagged by class and method. Controller handlers are already timed
+ * by the {@code http.server.requests} metric of Spring Boot.
+ */
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+		return new TimedAspect(meterRegistry);
+	}
+
+}
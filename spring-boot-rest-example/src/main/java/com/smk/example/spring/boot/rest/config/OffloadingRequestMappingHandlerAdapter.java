@@ -0,0 +1,122 @@
+package com.smk.example.spring.boot.rest.config;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.smk.example.spring.boot.rest.exception.ServiceUnavailableException;
+
+/**
+ * Runs the handlers of {@link RestController}s on a bounded executor instead of
+ * the container thread, as if they returned a {@link Callable}. The container
+ * thread only resolves the arguments and is then released; the result is
+ * written by Spring MVC on the async dispatch like any other return value.
+ * <p>
+ * A request that finds every worker busy and the queue full is refused with a
+ * {@link ServiceUnavailableException} rather than queued without limit.
+ * Handlers that are already asynchronous, such as streamed exports and event
+ * streams, are left as they are.
+ */
+class OffloadingRequestMappingHandlerAdapter extends RequestMappingHandlerAdapter implements DisposableBean {
+
+	private final ThreadPoolTaskExecutor executor;
+
+	private final Semaphore permits;
+
+	private final long timeout;
+
+	private final long retryAfter;
+
+	OffloadingRequestMappingHandlerAdapter(int poolSize, int queueCapacity, long timeout, long retryAfter) {
+		this.executor = new ThreadPoolTaskExecutor();
+		this.executor.setCorePoolSize(poolSize);
+		this.executor.setMaxPoolSize(poolSize);
+		this.executor.setQueueCapacity(queueCapacity);
+		this.executor.setThreadNamePrefix("book-handler-");
+		this.executor.initialize();
+		// one permit per worker and queue slot, so a request is refused before the executor would reject it
+		this.permits = new Semaphore(poolSize + queueCapacity);
+		this.timeout = timeout;
+		this.retryAfter = retryAfter;
+	}
+
+	@Override
+	protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+		if (!isOffloaded(handlerMethod))
+			return super.createInvocableHandlerMethod(handlerMethod);
+		return new OffloadedHandlerMethod(handlerMethod);
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdown();
+	}
+
+	private static boolean isOffloaded(HandlerMethod handlerMethod) {
+		if (!AnnotatedElementUtils.hasAnnotation(handlerMethod.getBeanType(), RestController.class))
+			return false;
+		MethodParameter returnType = handlerMethod.getReturnType();
+		Class<?> type = returnType.getParameterType();
+		if (HttpEntity.class.isAssignableFrom(type))
+			type = ResolvableType.forMethodParameter(returnType).getGeneric().resolve(Object.class);
+		return !(Callable.class.isAssignableFrom(type) || WebAsyncTask.class.isAssignableFrom(type)
+				|| DeferredResult.class.isAssignableFrom(type) || CompletionStage.class.isAssignableFrom(type)
+				|| ListenableFuture.class.isAssignableFrom(type) || ResponseBodyEmitter.class.isAssignableFrom(type)
+				|| StreamingResponseBody.class.isAssignableFrom(type));
+	}
+
+	private class OffloadedHandlerMethod extends ServletInvocableHandlerMethod {
+
+		OffloadedHandlerMethod(HandlerMethod handlerMethod) {
+			super(handlerMethod);
+		}
+
+		@Override
+		public void invokeAndHandle(ServletWebRequest webRequest, ModelAndViewContainer mavContainer,
+				Object... providedArgs) throws Exception {
+			Object[] args = getMethodArgumentValues(webRequest, mavContainer, providedArgs);
+			if (!permits.tryAcquire())
+				throw new ServiceUnavailableException(retryAfter);
+			// the status of @ResponseStatus is set now, as the async dispatch only knows the returned value
+			HttpStatus status = getResponseStatus();
+			if (status != null && webRequest.getResponse() != null)
+				webRequest.getResponse().setStatus(status.value());
+			Callable<Object> handler = () -> {
+				try {
+					return doInvoke(args);
+				} finally {
+					permits.release();
+				}
+			};
+			try {
+				WebAsyncUtils.getAsyncManager(webRequest)
+						.startCallableProcessing(new WebAsyncTask<Object>(timeout, executor, handler), mavContainer);
+			} catch (Exception exception) {
+				permits.release();
+				throw exception;
+			}
+		}
+
+	}
+
+}
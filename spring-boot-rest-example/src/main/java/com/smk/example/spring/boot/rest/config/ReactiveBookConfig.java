@@ -0,0 +1,72 @@
+package com.smk.example.spring.boot.rest.config;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+import com.smk.example.spring.boot.rest.entity.BookRecord;
+import com.zaxxer.hikari.HikariDataSource;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Configuration of the reactive variant, active when the application runs as
+ * a reactive web application (the {@code reactive} profile).
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@EnableR2dbcAuditing
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveBookConfig implements WebFluxConfigurer {
+
+	// Spring Boot backs off its data source once an R2DBC connection factory exists; it is declared here so that
+	// Hibernate still creates the schema that R2DBC shares, and the servlet-side beans keep their dependencies
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource dataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	// the R2DBC transaction manager is also a TransactionManager, so the one used by @Transactional on the
+	// servlet-side services is made primary; the reactive service uses a TransactionalOperator instead
+	@Bean
+	@Primary
+	public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+		return new JpaTransactionManager(entityManagerFactory);
+	}
+
+	// ids come from the sequence used by Hibernate; it advances by the allocation size, which keeps them unique
+	@Bean
+	public BeforeConvertCallback<BookRecord> bookIdCallback(DatabaseClient databaseClient) {
+		return (bookRecord, table) -> {
+			if (bookRecord.getId() != null)
+				return Mono.just(bookRecord);
+			return databaseClient.sql("select next value for book_seq").map(row -> row.get(0, Long.class)).one()
+					.map(id -> {
+						bookRecord.setId(id);
+						return bookRecord;
+					});
+		};
+	}
+
+	// Spring Boot only registers the Pageable argument resolver for Spring MVC
+	@Override
+	public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+		configurer.addCustomResolver(new ReactivePageableHandlerMethodArgumentResolver());
+	}
+
+}
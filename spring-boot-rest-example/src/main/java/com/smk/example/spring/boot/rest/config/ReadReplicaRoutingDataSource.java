@@ -0,0 +1,23 @@
+package com.smk.example.spring.boot.rest.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes connections of read-only transactions to the replica and every other
+ * connection to the primary. It must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so
+ * that the connection is only fetched once the transaction is marked read-only.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	public enum Route {
+		PRIMARY, REPLICA
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.REPLICA : Route.PRIMARY;
+	}
+
+}
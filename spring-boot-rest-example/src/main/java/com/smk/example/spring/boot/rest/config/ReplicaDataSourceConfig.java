@@ -0,0 +1,64 @@
+package com.smk.example.spring.boot.rest.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.smk.example.spring.boot.rest.config.ReadReplicaRoutingDataSource.Route;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Replaces the auto-configured data source with one that sends read-only
+ * transactions to a replica, when {@code book.datasource.replica.url} is set.
+ */
+@Configuration
+@ConditionalOnProperty("book.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	@Bean
+	@ConfigurationProperties("book.datasource.replica.hikari")
+	public HikariDataSource replicaDataSource(@Value("${book.datasource.replica.url}") String url,
+			@Value("${book.datasource.replica.username:sa}") String username,
+			@Value("${book.datasource.replica.password:}") String password) {
+		HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class).url(url)
+				.username(username).password(password).build();
+		dataSource.setPoolName("replica");
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+			@Qualifier("replicaDataSource") DataSource replicaDataSource) {
+		Map<Object, Object> targetDataSources = new HashMap<Object, Object>();
+		targetDataSources.put(Route.PRIMARY, primaryDataSource);
+		targetDataSources.put(Route.REPLICA, replicaDataSource);
+		ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource();
+		routingDataSource.setTargetDataSources(targetDataSources);
+		routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+		routingDataSource.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+
+}
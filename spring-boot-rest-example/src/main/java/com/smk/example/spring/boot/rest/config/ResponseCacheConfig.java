@@ -0,0 +1,38 @@
+package com.smk.example.spring.boot.rest.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import com.smk.example.spring.boot.rest.controller.BookResponseCacheFilter;
+import com.smk.example.spring.boot.rest.service.BookService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Serves the list endpoints from encoded bodies cached until the next write
+ * when {@code book.response-cache.enabled} is {@code true}. Bodies of at least
+ * {@code server.compression.min-response-size} are also cached gzipped.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(name = "book.response-cache.enabled", havingValue = "true")
+public class ResponseCacheConfig {
+
+	@Bean
+	public FilterRegistrationBean<BookResponseCacheFilter> bookResponseCacheFilter(BookService bookService,
+			MeterRegistry meterRegistry, @Value("${book.response-cache.maximum-size}") DataSize maximumSize,
+			@Value("${server.compression.min-response-size}") DataSize minCompressionSize) {
+		FilterRegistrationBean<BookResponseCacheFilter> registration = new FilterRegistrationBean<BookResponseCacheFilter>(
+				new BookResponseCacheFilter(bookService, meterRegistry, maximumSize.toBytes(),
+						(int) minCompressionSize.toBytes()));
+		registration.addUrlPatterns("/books", "/books/");
+		return registration;
+	}
+
+}
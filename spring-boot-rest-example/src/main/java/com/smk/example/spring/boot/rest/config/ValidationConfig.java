@@ -0,0 +1,70 @@
+package com.smk.example.spring.boot.rest.config;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.validation.Validator;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ReflectionUtils;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.model.BookModel;
+
+/**
+ * Chooses where books are validated on writes, with
+ * {@code book.write.validation}.
+ * <p>
+ * The controllers validate every BookModel they receive, whole on create and
+ * update, property by property on patch. With {@code BOUNDARY} that is the only
+ * pass: Hibernate no longer validates the entity before insert and update, and
+ * only derives column constraints from the annotations. Startup then fails if
+ * the entity has a constraint the model does not, since it would go
+ * unchecked. {@code BOTH} also validates the entity, for writes that do not
+ * come through a controller.
+ */
+@Configuration
+public class ValidationConfig {
+
+	public enum WriteValidation {
+		BOUNDARY, BOTH
+	}
+
+	private static final String VALIDATION_MODE = "javax.persistence.validation.mode";
+
+	@Bean
+	public HibernatePropertiesCustomizer validationModeCustomizer(@Value("${book.write.validation}") WriteValidation writeValidation,
+			Validator validator) {
+		if (writeValidation == WriteValidation.BOUNDARY)
+			checkModelCoversEntity(validator);
+		String validationMode = writeValidation == WriteValidation.BOUNDARY ? "ddl" : "ddl,callback";
+		return hibernateProperties -> hibernateProperties.put(VALIDATION_MODE, validationMode);
+	}
+
+	private static void checkModelCoversEntity(Validator validator) {
+		for (PropertyDescriptor property : validator.getConstraintsForClass(Book.class).getConstrainedProperties()) {
+			// the audit dates of the superclass are set by Spring Data, not copied from the model
+			Field field = ReflectionUtils.findField(Book.class, property.getPropertyName());
+			if (field == null || field.getDeclaringClass() != Book.class)
+				continue;
+			PropertyDescriptor modelProperty = validator.getConstraintsForClass(BookModel.class)
+					.getConstraintsForProperty(property.getPropertyName());
+			Set<Annotation> modelConstraints = modelProperty == null ? Collections.emptySet()
+					: modelProperty.getConstraintDescriptors().stream().map(ConstraintDescriptor::getAnnotation).collect(Collectors.toSet());
+			for (ConstraintDescriptor<?> constraint : property.getConstraintDescriptors()) {
+				if (!modelConstraints.contains(constraint.getAnnotation()))
+					throw new IllegalStateException(String.format("Constraint %s of Book.%s is not checked on BookModel, "
+							+ "add it to the model or set book.write.validation=BOTH", constraint.getAnnotation(), property.getPropertyName()));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.smk.example.spring.boot.rest.config;
+
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Adds {@code Vary: Accept} to the responses of handlers that produce more than
+ * one media type, so that shared caches keep one entry per representation.
+ * The header is set before the handler runs, so that it is also on the 304s
+ * and the errors of these handlers.
+ */
+class VaryByAcceptInterceptor implements HandlerInterceptor {
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		// set by the handler mapping from the produces condition of the matched handler
+		@SuppressWarnings("unchecked")
+		Set<MediaType> producible = (Set<MediaType>) request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+		if (producible != null && producible.size() > 1 && !response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT))
+			response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		return true;
+	}
+
+}
@@ -1,32 +1,49 @@
 package com.smk.example.spring.boot.rest.controller;
 
-import java.io.StringReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import javax.json.Json;
-import javax.json.JsonMergePatch;
-import javax.json.JsonPatch;
-import javax.json.JsonReader;
-import javax.json.JsonStructure;
-import javax.json.JsonValue;
+import javax.persistence.PersistenceException;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.Valid;
 import javax.validation.Validator;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
 
-import org.modelmapper.ModelMapper;
 import org.springdoc.api.annotations.ParameterObject;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
 import org.springframework.util.CollectionUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -36,19 +53,50 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.smk.example.spring.boot.rest.entity.Book;
 import com.smk.example.spring.boot.rest.exception.BookNotFoundException;
+import com.smk.example.spring.boot.rest.exception.InvalidFilterException;
+import com.smk.example.spring.boot.rest.exception.InvalidPatchException;
+import com.smk.example.spring.boot.rest.exception.InvalidSortException;
 import com.smk.example.spring.boot.rest.exception.NoBookFoundException;
+import com.smk.example.spring.boot.rest.exception.PreconditionFailedException;
+import com.smk.example.spring.boot.rest.mapper.BookMapper;
+import com.smk.example.spring.boot.rest.model.BookBatchItemResult;
+import com.smk.example.spring.boot.rest.model.BookBatchResult;
+import com.smk.example.spring.boot.rest.model.BookBulkRequest;
+import com.smk.example.spring.boot.rest.model.BookBulkResult;
+import com.smk.example.spring.boot.rest.model.BookChange;
+import com.smk.example.spring.boot.rest.model.BookChangePage;
+import com.smk.example.spring.boot.rest.model.BookCursor;
+import com.smk.example.spring.boot.rest.model.BookCursorPage;
+import com.smk.example.spring.boot.rest.model.BookField;
+import com.smk.example.spring.boot.rest.model.BookFilter;
 import com.smk.example.spring.boot.rest.model.BookModel;
 import com.smk.example.spring.boot.rest.model.BookModel.OnUpdate;
+import com.smk.example.spring.boot.rest.model.BookView;
+import com.smk.example.spring.boot.rest.patch.BookPatch;
+import com.smk.example.spring.boot.rest.patch.BookPatchCompiler;
 import com.smk.example.spring.boot.rest.service.BookService;
+import com.smk.example.spring.boot.rest.validation.Isbn;
+import com.smk.example.spring.boot.rest.validation.Isbns;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -60,89 +108,326 @@ import lombok.extern.slf4j.Slf4j;
 
 @RestController
 @RequestMapping(path = "/books")
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @Slf4j
 @Validated
 public class BookController {
 
+	// properties that several books may share, unlike the ISBN, and that the application does not set
+	private static final Set<String> BULK_PROPERTIES = new HashSet<String>(
+			Arrays.asList("title", "author", "publicationDate", "publisher", "format", "pages"));
+
+	// properties that lead an index, by which the database reads the books in order instead of sorting them all
+	private static final Set<String> SORT_PROPERTIES = new HashSet<String>(
+			Arrays.asList("id", "title", "author", "publisher", "publicationDate"));
+
 	private final ObjectMapper objectMapper;
 
 	private final Validator validator;
 
 	private final BookService bookService;
 
-	public BookController(BookService bookService, ObjectMapper objectMapper, Validator validator) {
+	private final BookMapper bookMapper;
+
+	private final BookPatchCompiler bookPatchCompiler;
+
+	private final int batchChunkSize;
+
+	private final Timer patchTimer;
+
+	public BookController(BookService bookService, BookMapper bookMapper, BookPatchCompiler bookPatchCompiler,
+			ObjectMapper objectMapper, Validator validator, MeterRegistry meterRegistry,
+			@Value("${book.batch.chunk-size}") int batchChunkSize) {
 		this.bookService = bookService;
+		this.bookMapper = bookMapper;
+		this.bookPatchCompiler = bookPatchCompiler;
 		this.objectMapper = objectMapper;
 		this.validator = validator;
+		this.batchChunkSize = batchChunkSize;
+		// a compiled patch is not a bean, so its application is timed here
+		this.patchTimer = Timer.builder("book.patch.apply").description("Application of a compiled patch to a book")
+				.register(meterRegistry);
 	}
 
 	@Operation(summary = "Get book by ID")
 	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Book is found", content = {
-			@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }) })
-	@GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-	@ResponseStatus(HttpStatus.OK)
-	public BookModel getBook(@Parameter(description = "ID of book to search") @PathVariable @Min(1) Long id) {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }),
+			@ApiResponse(responseCode = "304", description = "Book has not changed since the given entity tag") })
+	@GetMapping(path = "/{id}", produces = { MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE, BookMediaTypes.PROTOBUF_VALUE })
+	public ResponseEntity<BookModel> getBook(@Parameter(description = "ID of book to search") @PathVariable @Min(1) Long id,
+			@Parameter(description = "Entity tag of the representation held by the client") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
 		log.info("HTTP GET Book with id {}", id);
-		ModelMapper modelMapper = new ModelMapper();
-		Book book = bookService.getBookById(id).orElseThrow(() -> new BookNotFoundException(id));
-		BookModel bookModel = modelMapper.map(book, BookModel.class);
-		return bookModel;
+		MediaType mediaType = BookMediaTypes.select(accept, BookMediaTypes.BOOK);
+		if (ifNoneMatch != null) {
+			// revalidation only needs the version, the book itself is not loaded unless it has changed
+			Long version = bookService.getBookVersion(id).orElseThrow(() -> new BookNotFoundException(id));
+			String etag = ETags.strong(id, version, mediaType);
+			if (ETags.matchesWeakly(ifNoneMatch, etag))
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		}
+		BookModel bookModel = bookService.getBookById(id).orElseThrow(() -> new BookNotFoundException(id));
+		return ResponseEntity.ok().eTag(ETags.strong(id, bookModel.getVersion(), mediaType)).body(bookModel);
+	}
+
+	@Operation(summary = "Get selected fields of book by ID")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Book is found, only the requested fields are returned", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }),
+			@ApiResponse(responseCode = "304", description = "Book has not changed since the given entity tag") })
+	@GetMapping(path = "/{id}", params = "fields", produces = { MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE, BookMediaTypes.PROTOBUF_VALUE })
+	public ResponseEntity<BookView> getBookFields(@Parameter(description = "ID of book to search") @PathVariable @Min(1) Long id,
+			@Parameter(description = "Comma separated properties of book to return, e.g. id,title,author") @RequestParam String fields,
+			@Parameter(description = "Entity tag of the representation held by the client") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		Set<BookField> bookFields = BookField.parse(fields);
+		// the cached book is reduced rather than projected, since it usually spares the query altogether
+		ResponseEntity<BookModel> response = getBook(id, ifNoneMatch, accept);
+		return ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders())
+				.body(response.hasBody() ? BookView.of(response.getBody(), bookFields) : null);
 	}
 
 	@Operation(summary = "Search book by title and author (optional)")
 	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Book is found", content = {
 			@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }) })
-	@GetMapping(path = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+	@GetMapping(path = "/search", produces = { MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE, BookMediaTypes.PROTOBUF_VALUE })
 	@ResponseStatus(HttpStatus.OK)
 	public BookModel getBookByTitleAndOptionalAuthor(
 			@Parameter(description = "Title of book to search") @RequestParam String title,
 			@Parameter(description = "Author of book to search (optional)") @RequestParam(required = false) Optional<String> author) {
 		log.info("HTTP GET Book with title and optional author");
-		ModelMapper modelMapper = new ModelMapper();
-		Book book;
+		BookModel bookModel;
 		if (author.isPresent())
-			book = bookService.getBookByTitleAndAuthor(title, author.get())
+			bookModel = bookService.getBookByTitleAndAuthor(title, author.get())
 					.orElseThrow(() -> new BookNotFoundException(title, author.get()));
 		else
-			book = bookService.getBookByTitle(title).orElseThrow(() -> new BookNotFoundException(title));
-		BookModel bookModel = modelMapper.map(book, BookModel.class);
+			bookModel = bookService.getBookByTitle(title).orElseThrow(() -> new BookNotFoundException(title));
 		return bookModel;
 	}
 
+	@Operation(summary = "Get selected fields of book by title and author (optional)")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Book is found, only the requested fields are returned", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }) })
+	@GetMapping(path = "/search", params = { "title", "fields" }, produces = { MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE, BookMediaTypes.PROTOBUF_VALUE })
+	@ResponseStatus(HttpStatus.OK)
+	public BookView getBookFieldsByTitleAndOptionalAuthor(
+			@Parameter(description = "Title of book to search") @RequestParam String title,
+			@Parameter(description = "Author of book to search (optional)") @RequestParam(required = false) Optional<String> author,
+			@Parameter(description = "Comma separated properties of book to return, e.g. id,title,author") @RequestParam String fields) {
+		Set<BookField> bookFields = BookField.parse(fields);
+		return BookView.of(getBookByTitleAndOptionalAuthor(title, author), bookFields);
+	}
+
+	@Operation(summary = "Get book by ISBN-10 or ISBN-13, with or without hyphens")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Book is found", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }) })
+	@GetMapping(path = "/isbn/{isbn}", produces = { MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE, BookMediaTypes.PROTOBUF_VALUE })
+	public ResponseEntity<BookModel> getBookByIsbn(@Parameter(description = "ISBN of book to search") @PathVariable @Isbn String isbn,
+			@Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		log.info("HTTP GET Book with ISBN {}", isbn);
+		String normalizedIsbn = Isbns.normalize(isbn);
+		// the in-memory index gives the id without a query and the book usually comes from the cache by id; the index
+		// is updated after commit, so a book that no longer has this ISBN is looked up again in the database
+		Optional<BookModel> indexedBook = bookService.getIndexedBookId(normalizedIsbn).flatMap(bookService::getBookById)
+				.filter(book -> normalizedIsbn.equals(Isbns.normalize(book.getIsbn())));
+		BookModel bookModel = indexedBook.or(() -> bookService.getBookByIsbn(normalizedIsbn))
+				.orElseThrow(() -> BookNotFoundException.withIsbn(isbn));
+		return ResponseEntity.ok()
+				.eTag(ETags.strong(bookModel.getId(), bookModel.getVersion(), BookMediaTypes.select(accept, BookMediaTypes.BOOK)))
+				.body(bookModel);
+	}
+
+	@Operation(summary = "Search books by relevance to words of their title, author or publisher, or by ISBN")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Books are found, most relevant first") })
+	@GetMapping(path = "/search", params = "q", produces = { MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE, BookMediaTypes.PROTOBUF_VALUE })
+	@ResponseStatus(HttpStatus.OK)
+	public Page<BookModel> searchBooks(
+			@Parameter(description = "Words to search, also matched as prefixes or with one typo") @RequestParam @NotBlank @Size(max = 255) String q,
+			@Parameter(description = "Page number") @RequestParam(defaultValue = "0") @Min(0) int page,
+			@Parameter(description = "Number of books per page") @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+		log.info("HTTP GET Book matching text");
+		Page<Book> books = bookService.searchBooks(q, PageRequest.of(page, size));
+		if (CollectionUtils.isEmpty(books.getContent()))
+			throw new NoBookFoundException();
+		return bookMapper.toModels(books);
+	}
+
+	@Operation(summary = "Search selected fields of books by relevance to words of their title, author or publisher, or by ISBN")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Books are found, most relevant first, only the requested fields are returned") })
+	@GetMapping(path = "/search", params = { "q", "fields" }, produces = { MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE, BookMediaTypes.PROTOBUF_VALUE })
+	@ResponseStatus(HttpStatus.OK)
+	public Page<BookView> searchBookFields(
+			@Parameter(description = "Words to search, also matched as prefixes or with one typo") @RequestParam @NotBlank @Size(max = 255) String q,
+			@Parameter(description = "Comma separated properties of book to return, e.g. id,title,author") @RequestParam String fields,
+			@Parameter(description = "Page number") @RequestParam(defaultValue = "0") @Min(0) int page,
+			@Parameter(description = "Number of books per page") @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+		log.info("HTTP GET fields of Book matching text");
+		Page<BookView> books = bookService.searchBookViews(q, BookField.parse(fields), PageRequest.of(page, size));
+		if (CollectionUtils.isEmpty(books.getContent()))
+			throw new NoBookFoundException();
+		return books;
+	}
+
 	@Operation(summary = "Get all books")
 	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "All books are found", content = {
-			@Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = BookModel.class))) }) })
-	@GetMapping(path = "/", produces = MediaType.APPLICATION_JSON_VALUE)
-	@ResponseStatus(HttpStatus.OK)
-	public List<BookModel> getAllBooks() {
+			@Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = BookModel.class))) }),
+			@ApiResponse(responseCode = "304", description = "Catalog has not changed since the given entity tag") })
+	@GetMapping(path = "/", produces = { MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<List<BookModel>> getAllBooks(@Parameter(description = "Entity tag of the representation held by the client") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 		log.info("HTTP GET all Book");
-		ModelMapper modelMapper = new ModelMapper();
+		String etag = ETags.weak(bookService.getCatalogVersion());
+		if (ETags.matchesWeakly(ifNoneMatch, etag))
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
 		List<Book> books = bookService.getAllBooks();
 		if (CollectionUtils.isEmpty(books))
 			throw new NoBookFoundException();
-		List<BookModel> bookModels = books.stream().map(book -> {
-			BookModel bookModel = modelMapper.map(book, BookModel.class);
-			return bookModel;
-		}).collect(Collectors.toList());
+		List<BookModel> bookModels = bookMapper.toModels(books);
 		bookModels.sort(Comparator.comparing(BookModel::getTitle));
-		return bookModels;
+		return ResponseEntity.ok().eTag(etag).body(bookModels);
 	}
 
-	@Operation(summary = "Get all books by pages")
-	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "All books are found") })
-	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-	@ResponseStatus(HttpStatus.OK)
-	public Page<BookModel> getAllBooks(@ParameterObject Pageable pageable) {
-		log.info("HTTP GET all Book by Page");
-		ModelMapper modelMapper = new ModelMapper();
-		Page<Book> books = bookService.getAllBooks(pageable);
+	@Operation(summary = "Get selected fields of all books")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "All books are found, only the requested fields are returned", content = {
+			@Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = BookModel.class))) }),
+			@ApiResponse(responseCode = "304", description = "Catalog has not changed since the given entity tag") })
+	@GetMapping(path = "/", params = "fields", produces = { MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<List<BookView>> getAllBookFields(@Parameter(description = "Comma separated properties of book to return, e.g. id,title,author") @RequestParam String fields,
+			@Parameter(description = "Entity tag of the representation held by the client") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		log.info("HTTP GET fields of all Book");
+		Set<BookField> bookFields = BookField.parse(fields);
+		String etag = ETags.weak(bookService.getCatalogVersion());
+		if (ETags.matchesWeakly(ifNoneMatch, etag))
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		// only the requested columns are selected, already ordered by title
+		List<BookView> books = bookService.getAllBookViews(bookFields);
+		if (CollectionUtils.isEmpty(books))
+			throw new NoBookFoundException();
+		return ResponseEntity.ok().eTag(etag).body(books);
+	}
+
+	@Operation(summary = "Get all books by pages, optionally filtered")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "All books are found"),
+			@ApiResponse(responseCode = "304", description = "Catalog has not changed since the given entity tag") })
+	@GetMapping(produces = { MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE, BookMediaTypes.PROTOBUF_VALUE })
+	public ResponseEntity<Page<BookModel>> getAllBooks(@ParameterObject Pageable pageable, @ParameterObject @Valid BookFilter filter,
+			@Parameter(description = "Entity tag of the representation held by the client") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		log.info("HTTP GET all Book matching {} by Page", filter);
+		checkQuery(filter, pageable);
+		String etag = ETags.weak(bookService.getCatalogVersion());
+		if (ETags.matchesWeakly(ifNoneMatch, etag))
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		Page<Book> books = bookService.getAllBooks(filter, pageable);
 		if (CollectionUtils.isEmpty(books.getContent()))
 			throw new NoBookFoundException();
-		Page<BookModel> bookModels = books.map(book -> {
-			BookModel bookModel = modelMapper.map(book, BookModel.class);
-			return bookModel;
-		});
-		return bookModels;
+		Page<BookModel> bookModels = bookMapper.toModels(books);
+		return ResponseEntity.ok().eTag(etag).body(bookModels);
+	}
+
+	@Operation(summary = "Get selected fields of all books by pages, optionally filtered")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "All books are found, only the requested fields are returned"),
+			@ApiResponse(responseCode = "304", description = "Catalog has not changed since the given entity tag") })
+	@GetMapping(params = "fields", produces = { MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE, BookMediaTypes.PROTOBUF_VALUE })
+	public ResponseEntity<Page<BookView>> getAllBookFields(@ParameterObject Pageable pageable, @ParameterObject @Valid BookFilter filter, @Parameter(description = "Comma separated properties of book to return, e.g. id,title,author") @RequestParam String fields,
+			@Parameter(description = "Entity tag of the representation held by the client") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		log.info("HTTP GET fields of all Book matching {} by Page", filter);
+		Set<BookField> bookFields = BookField.parse(fields);
+		checkQuery(filter, pageable);
+		String etag = ETags.weak(bookService.getCatalogVersion());
+		if (ETags.matchesWeakly(ifNoneMatch, etag))
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		Page<BookView> books = bookService.getAllBookViews(bookFields, filter, pageable);
+		if (CollectionUtils.isEmpty(books.getContent()))
+			throw new NoBookFoundException();
+		return ResponseEntity.ok().eTag(etag).body(books);
+	}
+
+	@Operation(summary = "Scroll through all books with a continuation token")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Books are found", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookCursorPage.class)) }),
+			@ApiResponse(responseCode = "304", description = "Catalog has not changed since the given entity tag") })
+	@GetMapping(path = "/scroll", produces = { MediaType.APPLICATION_JSON_VALUE, BookMediaTypes.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<BookCursorPage> scrollBooks(
+			@Parameter(description = "Continuation token returned with the previous page (omit for the first page)") @RequestParam(required = false) Optional<String> cursor,
+			@Parameter(description = "Order of the scroll when starting without a token") @RequestParam(defaultValue = "TITLE") BookCursor.Key orderBy,
+			@Parameter(description = "Number of books per page") @RequestParam(defaultValue = "20") @Min(1) @Max(1000) int size,
+			@Parameter(description = "Include the total number of books (runs a count of the catalog)") @RequestParam(defaultValue = "false") boolean count,
+			@Parameter(description = "Entity tag of the representation held by the client") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		log.info("HTTP GET Book by cursor");
+		String etag = ETags.weak(bookService.getCatalogVersion());
+		if (ETags.matchesWeakly(ifNoneMatch, etag))
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		BookCursor bookCursor = cursor.map(BookCursor::decode).orElseGet(() -> BookCursor.first(orderBy));
+		Slice<Book> books = bookService.getBooksAfter(bookCursor, size);
+		if (CollectionUtils.isEmpty(books.getContent()))
+			throw new NoBookFoundException();
+		String next = null;
+		if (books.hasNext()) {
+			Book last = books.getContent().get(books.getNumberOfElements() - 1);
+			next = BookCursor.after(bookCursor.getKey(), last).encode();
+		}
+		Long totalElements = count ? bookService.countBooks() : null;
+		return ResponseEntity.ok().eTag(etag)
+				.body(new BookCursorPage(bookMapper.toModels(books.getContent()), next, totalElements));
+	}
+
+	@Operation(summary = "Export all books ordered by title as newline delimited JSON")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "All books are streamed", content = {
+			@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = BookModel.class)) }) })
+	@GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportBooksAsNdjson() {
+		log.info("HTTP GET export all Book as NDJSON");
+		ObjectWriter writer = objectMapper.writerFor(BookModel.class).withRootValueSeparator("\n")
+				.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		StreamingResponseBody body = outputStream -> {
+			try (SequenceWriter sequenceWriter = writer.writeValues(outputStream)) {
+				exportBooks(sequenceWriter);
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
+	@Operation(summary = "Export all books ordered by title as a streamed JSON array")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "All books are streamed", content = {
+			@Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = BookModel.class))) }) })
+	@GetMapping(path = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportBooksAsJsonArray() {
+		log.info("HTTP GET export all Book as JSON array");
+		ObjectWriter writer = objectMapper.writerFor(BookModel.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		StreamingResponseBody body = outputStream -> {
+			try (SequenceWriter sequenceWriter = writer.writeValuesAsArray(outputStream)) {
+				exportBooks(sequenceWriter);
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+	}
+
+	@Operation(summary = "Get the changes made to the catalog since a sequence number")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Changes are found", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookChangePage.class)) }),
+			@ApiResponse(responseCode = "410", description = "Changes since the given sequence are no longer available") })
+	@GetMapping(path = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+	public BookChangePage getChanges(
+			@Parameter(description = "Sequence of the last change seen (omit to get only the latest sequence)") @RequestParam(required = false) Optional<Long> since,
+			@Parameter(description = "Maximum number of changes to return") @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+		log.info("HTTP GET Book changes");
+		// the latest sequence is read first so that a client resuming from it never misses a change
+		long latest = bookService.getLatestChangeSequence();
+		List<BookChange> changes = since.map(sequence -> bookService.getChangesSince(sequence, limit))
+				.orElseGet(Collections::emptyList);
+		if (!changes.isEmpty())
+			latest = changes.get(changes.size() - 1).getSequence();
+		return new BookChangePage(changes, latest);
+	}
+
+	@Operation(summary = "Stream the changes made to the catalog as Server-Sent Events")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Changes are streamed as they are committed", content = {
+			@Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE, schema = @Schema(implementation = BookChange.class)) }) })
+	@GetMapping(path = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamChanges(
+			@Parameter(description = "Sequence of the last change seen (omit to receive only new changes)") @RequestParam(required = false) Optional<Long> since,
+			@Parameter(description = "Sequence of the last event received, sent by the browser when it reconnects") @RequestHeader(value = "Last-Event-ID", required = false) Optional<Long> lastEventId) {
+		log.info("HTTP GET Book changes as event stream");
+		long sequence = lastEventId.or(() -> since).orElseGet(bookService::getLatestChangeSequence);
+		return bookService.subscribeToChanges(sequence);
 	}
 
 	@Operation(summary = "Add new book")
@@ -156,79 +441,111 @@ public class BookController {
 		return saveBook(bookModel, new Book());
 	}
 
+	@Operation(summary = "Add new books in bulk")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Books processed, see the status of each item", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookBatchResult.class)) }) })
+	@PostMapping(path = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE }, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseStatus(HttpStatus.OK)
+	public BookBatchResult createBooks(
+			@io.swagger.v3.oas.annotations.parameters.RequestBody(description = "JSON array or newline delimited JSON documents of books to add", required = true, content = @Content(array = @ArraySchema(schema = @Schema(implementation = BookModel.class)))) InputStream body)
+			throws IOException {
+		log.info("HTTP POST batch of Book");
+		BookBatchResult result = new BookBatchResult();
+		List<Integer> chunkIndexes = new ArrayList<Integer>(batchChunkSize);
+		List<Book> chunk = new ArrayList<Book>(batchChunkSize);
+		// items are read one at a time from either a JSON array or a sequence of root level documents
+		try (MappingIterator<BookModel> iterator = objectMapper.readerFor(BookModel.class).readValues(body)) {
+			int index = 0;
+			while (true) {
+				BookModel bookModel;
+				try {
+					if (!iterator.hasNextValue())
+						break;
+					bookModel = iterator.nextValue();
+				} catch (JsonMappingException exception) {
+					// the document is well-formed, so the iterator skips to the next one
+					result.addRejected(index, BookBatchItemResult.Status.INVALID,
+							Arrays.asList("Invalid book: " + exception.getOriginalMessage()));
+					index++;
+					continue;
+				} catch (JsonProcessingException exception) {
+					// the rest of the payload cannot be read reliably
+					result.addRejected(index, BookBatchItemResult.Status.INVALID,
+							Arrays.asList("Malformed JSON: " + exception.getOriginalMessage()));
+					break;
+				}
+				Set<ConstraintViolation<BookModel>> violations = validator.validate(bookModel);
+				if (bookModel.getId() != null) {
+					// books are only created in bulk, an existing book is updated with PUT or PATCH
+					result.addRejected(index, BookBatchItemResult.Status.INVALID,
+							Arrays.asList("id must not be given, books are only created in bulk"));
+				} else if (violations.isEmpty()) {
+					chunkIndexes.add(index);
+					chunk.add(bookMapper.toEntity(bookModel, new Book()));
+					if (chunk.size() == batchChunkSize)
+						saveChunk(chunkIndexes, chunk, result);
+				} else {
+					result.addRejected(index, BookBatchItemResult.Status.INVALID, violations.stream()
+							.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+							.collect(Collectors.toList()));
+				}
+				index++;
+			}
+		}
+		if (!chunk.isEmpty())
+			saveChunk(chunkIndexes, chunk, result);
+		result.getItems().sort(Comparator.comparingInt(BookBatchItemResult::getIndex));
+		return result;
+	}
+
 	@Operation(summary = "Update book by ID")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "201", description = "Book added successfully", content = {
 					@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }),
 			@ApiResponse(responseCode = "200", description = "Book updated successfully", content = {
-					@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }) })
+					@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }),
+			@ApiResponse(responseCode = "412", description = "Book does not match the given entity tag") })
 	@PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<BookModel> updateBook(
 			@Parameter(description = "ID of the book to update") @PathVariable @Min(1) Long id,
+			@Parameter(description = "Entity tag the book must currently match for the request to proceed") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
 			@Validated(OnUpdate.class) @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "JSON document of book to update (need to include all fields even if they have no changes)", required = true, content = @Content(schema = @Schema(implementation = BookModel.class))) @RequestBody BookModel bookModel) {
 		log.info("HTTP PUT Book {})", bookModel);
-		return bookService.getBookById(id).map(book -> {
-			return new ResponseEntity<BookModel>(saveBook(bookModel, book), HttpStatus.OK);
+		checkIfMatch(id, ifMatch);
+		return bookService.getBookEntityById(id).map(book -> {
+			return withETag(saveBook(bookModel, book), HttpStatus.OK);
 		}).orElseGet(() -> {
-			return new ResponseEntity<BookModel>(saveBook(bookModel, new Book()), HttpStatus.CREATED);
+			return withETag(saveBook(bookModel, new Book()), HttpStatus.CREATED);
 		});
 	}
 
 	@Operation(summary = "Merge book by ID")
 	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Book updated successfully", content = {
-			@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }) })
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }),
+			@ApiResponse(responseCode = "412", description = "Book does not match the given entity tag") })
 	@PatchMapping(path = "/merge/{id}", consumes = "application/merge-patch+json", produces = MediaType.APPLICATION_JSON_VALUE)
-	@ResponseStatus(HttpStatus.OK)
-	public BookModel mergeBook(@Parameter(description = "ID of book to merge") @PathVariable @Min(1) Long id,
-			@io.swagger.v3.oas.annotations.parameters.RequestBody(description = "JSON document that contains field(s) of book to update (no need to include fields that have no changes even if they are specified as required)", required = true, content = @Content(schema = @Schema(implementation = BookModel.class))) @RequestBody String payload) {
+	public ResponseEntity<BookModel> mergeBook(@Parameter(description = "ID of book to merge") @PathVariable @Min(1) Long id,
+			@Parameter(description = "Entity tag the book must currently match for the request to proceed") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@io.swagger.v3.oas.annotations.parameters.RequestBody(description = "JSON document that contains field(s) of book to update (no need to include fields that have no changes even if they are specified as required)", required = true, content = @Content(schema = @Schema(implementation = BookModel.class))) InputStream payload) {
 		log.info("HTTP MERGE PATCH Book with id {}", id);
-		JsonMergePatch patchDocument;
-		try (JsonReader reader = Json.createReader(new StringReader(payload))) {
-			patchDocument = Json.createMergePatch(reader.readValue());
-		}
-		ModelMapper modelMapper = new ModelMapper();
-		Book book = bookService.getBookById(id).orElseThrow(() -> new BookNotFoundException(id));
-		BookModel bookModel = modelMapper.map(book, BookModel.class);
-		// convert model targeted for patching to JSON document
-		JsonStructure target = objectMapper.convertValue(bookModel, JsonStructure.class);
-		// apply JSON patch onto JSON document of target model
-		JsonValue patched = patchDocument.apply(target);
-		// convert JSON document of target model back to model
-		BookModel patchedBookModel = objectMapper.convertValue(patched, BookModel.class);
-		Set<ConstraintViolation<BookModel>> violations = validator.validate(patchedBookModel);
-		if (!violations.isEmpty()) {
-			throw new ConstraintViolationException(violations);
-		}
-		return saveBook(patchedBookModel, book);
+		Long expectedVersion = checkIfMatch(id, ifMatch);
+		BookPatch patch = bookPatchCompiler.compileMergePatch(payload);
+		return withETag(applyPatch(id, expectedVersion, patch), HttpStatus.OK);
 	}
 
 	@Operation(summary = "Patch book by ID")
 	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Book updated successfully", content = {
-			@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }) })
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookModel.class)) }),
+			@ApiResponse(responseCode = "412", description = "Book does not match the given entity tag") })
 	@PatchMapping(path = "/patch/{id}", consumes = "application/json-patch+json", produces = MediaType.APPLICATION_JSON_VALUE)
-	@ResponseStatus(HttpStatus.OK)
-	public BookModel patchBook(@Parameter(description = "ID of book to patch") @PathVariable @Min(1) Long id,
-			@io.swagger.v3.oas.annotations.parameters.RequestBody(description = "JSONPatch document to patch book", required = true, content = @Content(schema = @Schema(ref = "#/components/schemas/JSONPatch"))) @RequestBody String payload) {
+	public ResponseEntity<BookModel> patchBook(@Parameter(description = "ID of book to patch") @PathVariable @Min(1) Long id,
+			@Parameter(description = "Entity tag the book must currently match for the request to proceed") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@io.swagger.v3.oas.annotations.parameters.RequestBody(description = "JSONPatch document to patch book", required = true, content = @Content(schema = @Schema(ref = "#/components/schemas/JSONPatch"))) InputStream payload) {
 		log.info("HTTP PATCH Book with id {}", id);
-		JsonPatch patchDocument;
-		try (JsonReader reader = Json.createReader(new StringReader(payload))) {
-			// pay load must be in JSON Array
-			patchDocument = Json.createPatch(reader.readArray());
-		}
-		ModelMapper modelMapper = new ModelMapper();
-		Book book = bookService.getBookById(id).orElseThrow(() -> new BookNotFoundException(id));
-		BookModel bookModel = modelMapper.map(book, BookModel.class);
-		// convert model targeted for patching to JSON document
-		JsonStructure target = objectMapper.convertValue(bookModel, JsonStructure.class);
-		// apply JSON patch onto JSON document of target model
-		JsonValue patched = patchDocument.apply(target);
-		// convert JSON document of target model back to model
-		BookModel patchedBookModel = objectMapper.convertValue(patched, BookModel.class);
-		Set<ConstraintViolation<BookModel>> violations = validator.validate(patchedBookModel);
-		if (!violations.isEmpty()) {
-			throw new ConstraintViolationException(violations);
-		}
-		return saveBook(patchedBookModel, book);
+		Long expectedVersion = checkIfMatch(id, ifMatch);
+		// pay load must be in JSON Array
+		BookPatch patch = bookPatchCompiler.compileJsonPatch(payload);
+		return withETag(applyPatch(id, expectedVersion, patch), HttpStatus.OK);
 	}
 
 	@Operation(summary = "Delete book by ID")
@@ -244,14 +561,173 @@ public class BookController {
 		}
 	}
 
-	private BookModel saveBook(BookModel bookModel, Book book) {
-		ModelMapper modelMapper = new ModelMapper();
-		modelMapper.typeMap(BookModel.class, Book.class).addMappings(mapper -> {
-			mapper.skip(Book::setId);
+	@Operation(summary = "Delete books by filter")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Books deleted, see their number", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookBulkResult.class)) }) })
+	@DeleteMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+	public BookBulkResult deleteBooks(@ParameterObject @Valid BookFilter filter) {
+		log.info("HTTP DELETE Books matching {}", filter);
+		checkFilter(filter);
+		return new BookBulkResult(bookService.deleteBooks(filter));
+	}
+
+	@Operation(summary = "Merge books by filter")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Books updated, see their number", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookBulkResult.class)) }) })
+	@PatchMapping(consumes = "application/merge-patch+json", produces = MediaType.APPLICATION_JSON_VALUE)
+	public BookBulkResult mergeBooks(@ParameterObject @Valid BookFilter filter,
+			@io.swagger.v3.oas.annotations.parameters.RequestBody(description = "JSON document that contains field(s) to set on every book matching the filter, except id, isbn and version", required = true, content = @Content(schema = @Schema(implementation = BookModel.class))) InputStream payload) {
+		log.info("HTTP MERGE PATCH Books matching {}", filter);
+		checkFilter(filter);
+		Map<String, Object> properties = bulkProperties(bookPatchCompiler.compileMergePatch(payload));
+		return new BookBulkResult(bookService.mergeBooks(filter, properties));
+	}
+
+	@Operation(summary = "Delete books by IDs given in the body")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Books deleted, see their number", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookBulkResult.class)) }) })
+	@PostMapping(path = "/delete", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public BookBulkResult deleteBooksById(
+			@Valid @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "IDs of the books to delete, at most 100000", required = true, content = @Content(schema = @Schema(implementation = BookBulkRequest.class))) @RequestBody BookBulkRequest request) {
+		log.info("HTTP POST Delete of {} books", request.getIds().size());
+		BookFilter filter = new BookFilter().withIds(request.getIds());
+		return new BookBulkResult(bookService.deleteBooks(filter));
+	}
+
+	@Operation(summary = "Merge books by IDs given in the body")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Books updated, see their number", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookBulkResult.class)) }) })
+	@PostMapping(path = "/merge", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public BookBulkResult mergeBooksById(
+			@Valid @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "IDs of the books to update, at most 100000, and the JSON Merge Patch document to apply to each of them", required = true, content = @Content(schema = @Schema(implementation = BookBulkRequest.class))) @RequestBody BookBulkRequest request) {
+		log.info("HTTP POST Merge of {} books", request.getIds().size());
+		Map<String, Object> properties = bulkProperties(bookPatchCompiler.compileMergePatch(request.getPatch()));
+		BookFilter filter = new BookFilter().withIds(request.getIds());
+		return new BookBulkResult(bookService.mergeBooks(filter, properties));
+	}
+
+	// the patch is applied to an empty model, which then holds the values of the properties it sets
+	private Map<String, Object> bulkProperties(BookPatch patch) {
+		BookModel bookModel = new BookModel();
+		Set<String> touched = patchTimer.record(() -> patch.apply(bookModel));
+		if (touched.isEmpty())
+			throw new InvalidPatchException("JSON Merge Patch document sets no property of book");
+		BeanWrapper values = PropertyAccessorFactory.forBeanPropertyAccess(bookModel);
+		Map<String, Object> properties = new LinkedHashMap<String, Object>();
+		for (String property : touched) {
+			if (!BULK_PROPERTIES.contains(property))
+				throw new InvalidPatchException(String.format("Property %s cannot be set on several books", property));
+			properties.put(property, values.getPropertyValue(property));
+		}
+		validateProperties(bookModel, touched);
+		return properties;
+	}
+
+	private void exportBooks(SequenceWriter sequenceWriter) {
+		// rows are written one at a time while the database cursor is open
+		bookService.streamAllBooks(book -> {
+			try {
+				sequenceWriter.write(bookMapper.toModel(book));
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
 		});
-		modelMapper.map(bookModel, book);
+	}
+
+	private void saveChunk(List<Integer> chunkIndexes, List<Book> chunk, BookBatchResult result) {
+		// each chunk is saved in its own transaction
+		try {
+			List<Book> books = bookService.saveBooks(chunk);
+			for (int i = 0; i < books.size(); i++)
+				result.addCreated(chunkIndexes.get(i), books.get(i).getId());
+		} catch (DataAccessException | PersistenceException | TransactionException | ConstraintViolationException exception) {
+			// a chunk that conflicts with the catalog, e.g. on an ISBN, is saved book by book to reject only the
+			// conflicting ones. The flushes of saveBooks are not translated, unlike the commits
+			log.warn("Unable to save chunk of {} books, saving them one by one", chunk.size(), exception);
+			for (int i = 0; i < chunk.size(); i++) {
+				Book book = chunk.get(i);
+				// the failed transaction may have assigned an id and a version to the book
+				book.setId(null);
+				book.setVersion(null);
+				try {
+					Book savedBook = bookService.saveBooks(Collections.singletonList(book)).get(0);
+					result.addCreated(chunkIndexes.get(i), savedBook.getId());
+				} catch (DataAccessException | PersistenceException | TransactionException
+						| ConstraintViolationException conflict) {
+					result.addRejected(chunkIndexes.get(i), BookBatchItemResult.Status.FAILED,
+							Arrays.asList(NestedExceptionUtils.getMostSpecificCause(conflict).getMessage()));
+				}
+			}
+		}
+		chunkIndexes.clear();
+		chunk.clear();
+	}
+
+	private BookModel applyPatch(Long id, Long expectedVersion, BookPatch patch) {
+		Book book = bookService.getBookEntityById(id).orElseThrow(() -> new BookNotFoundException(id));
+		// the book may have changed between the precondition check and its loading
+		if (expectedVersion != null && !expectedVersion.equals(book.getVersion()))
+			throw new PreconditionFailedException(id);
+		BookModel bookModel = bookMapper.toModel(book);
+		// apply the patch directly onto the model and validate only the properties it changed
+		Set<String> touched = patchTimer.record(() -> patch.apply(bookModel));
+		validateProperties(bookModel, touched);
+		return saveBook(bookModel, book);
+	}
+
+	private void validateProperties(BookModel bookModel, Set<String> properties) {
+		Set<ConstraintViolation<BookModel>> violations = new HashSet<ConstraintViolation<BookModel>>();
+		for (String property : properties)
+			violations.addAll(validator.validateProperty(bookModel, property));
+		if (!violations.isEmpty()) {
+			throw new ConstraintViolationException(violations);
+		}
+	}
+
+	// a bulk endpoint never applies to the whole catalog
+	private static void checkFilter(BookFilter filter) {
+		if (filter.isEmpty())
+			throw new InvalidFilterException("At least one criterion must be given");
+		checkRanges(filter);
+	}
+
+	// a sort that the database could only make by reading the whole table is rejected
+	private static void checkQuery(BookFilter filter, Pageable pageable) {
+		checkRanges(filter);
+		for (Sort.Order order : pageable.getSort()) {
+			if (!SORT_PROPERTIES.contains(order.getProperty()))
+				throw new InvalidSortException(order.getProperty());
+		}
+	}
+
+	private static void checkRanges(BookFilter filter) {
+		if (filter.getPagesMin() != null && filter.getPagesMax() != null && filter.getPagesMin() > filter.getPagesMax())
+			throw new InvalidFilterException("pagesMin must not be greater than pagesMax");
+		if (filter.getPublishedFrom() != null && filter.getPublishedTo() != null
+				&& filter.getPublishedFrom().isAfter(filter.getPublishedTo()))
+			throw new InvalidFilterException("publishedFrom must not be after publishedTo");
+	}
+
+	// fails fast with a version-only lookup, before the body is processed, and returns the matched version
+	private Long checkIfMatch(Long id, String ifMatch) {
+		if (ifMatch == null)
+			return null;
+		Long version = bookService.getBookVersion(id).orElseThrow(() -> new PreconditionFailedException(id));
+		if (!ETags.matchesStrongly(ifMatch, id, version))
+			throw new PreconditionFailedException(id);
+		return version;
+	}
+
+	private ResponseEntity<BookModel> withETag(BookModel bookModel, HttpStatus status) {
+		// writes only produce JSON
+		return ResponseEntity.status(status)
+				.eTag(ETags.strong(bookModel.getId(), bookModel.getVersion(), MediaType.APPLICATION_JSON)).body(bookModel);
+	}
+
+	private BookModel saveBook(BookModel bookModel, Book book) {
+		bookMapper.toEntity(bookModel, book);
 		book = bookService.saveBook(book);
-		BookModel savedBookModel = modelMapper.map(book, BookModel.class);
+		BookModel savedBookModel = bookMapper.toModel(book);
 		return savedBookModel;
 	}
 
@@ -0,0 +1,83 @@
+package com.smk.example.spring.boot.rest.controller;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.smk.example.spring.boot.rest.model.BookImportRequest;
+import com.smk.example.spring.boot.rest.model.BookImportStatus;
+import com.smk.example.spring.boot.rest.service.BookImporter;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@RequestMapping(path = "/books/imports")
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@Slf4j
+@Validated
+public class BookImportController {
+
+	private final BookImporter bookImporter;
+
+	public BookImportController(BookImporter bookImporter) {
+		this.bookImporter = bookImporter;
+	}
+
+	@Operation(summary = "Start the import of a CSV or NDJSON file of the import directory")
+	@ApiResponses(value = { @ApiResponse(responseCode = "202", description = "Import started, follow it at the Location", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookImportStatus.class)) }),
+			@ApiResponse(responseCode = "409", description = "Another import is running") })
+	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<BookImportStatus> startImport(
+			@Valid @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "File to import and its format", required = true, content = @Content(schema = @Schema(implementation = BookImportRequest.class))) @RequestBody BookImportRequest request,
+			@Parameter(hidden = true) UriComponentsBuilder uriBuilder) {
+		log.info("HTTP POST import of {}", request.getPath());
+		return accepted(bookImporter.startImport(request.getPath(), request.getFormat()), uriBuilder);
+	}
+
+	@Operation(summary = "Get the progress of an import")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Import is found", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookImportStatus.class)) }) })
+	@GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public BookImportStatus getImport(@Parameter(description = "ID of the import") @PathVariable @Min(1) Long id) {
+		log.info("HTTP GET import with id {}", id);
+		return bookImporter.getImportStatus(id);
+	}
+
+	@Operation(summary = "Resume a failed import after its last committed chunk")
+	@ApiResponses(value = { @ApiResponse(responseCode = "202", description = "Import resumed", content = {
+			@Content(mediaType = "application/json", schema = @Schema(implementation = BookImportStatus.class)) }),
+			@ApiResponse(responseCode = "400", description = "Import is completed, or its file has changed"),
+			@ApiResponse(responseCode = "409", description = "Another import is running") })
+	@PostMapping(path = "/{id}/resume", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<BookImportStatus> resumeImport(@Parameter(description = "ID of the import") @PathVariable @Min(1) Long id,
+			@Parameter(hidden = true) UriComponentsBuilder uriBuilder) {
+		log.info("HTTP POST resume of import with id {}", id);
+		return accepted(bookImporter.resumeImport(id), uriBuilder);
+	}
+
+	// built from the handler argument, the current request is not bound to the thread that runs offloaded handlers
+	private ResponseEntity<BookImportStatus> accepted(BookImportStatus status, UriComponentsBuilder uriBuilder) {
+		return ResponseEntity.accepted()
+				.location(uriBuilder.path("/books/imports/{id}").buildAndExpand(status.getId()).toUri()).body(status);
+	}
+
+}
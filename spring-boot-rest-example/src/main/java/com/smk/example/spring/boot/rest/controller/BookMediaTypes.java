@@ -0,0 +1,48 @@
+package com.smk.example.spring.boot.rest.controller;
+
+import java.util.List;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Binary media types in which books are also returned, besides JSON, when the
+ * Accept header asks for them. CBOR is {@link MediaType#APPLICATION_CBOR}.
+ */
+public final class BookMediaTypes {
+
+	public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+	public static final MediaType SMILE = MediaType.valueOf(SMILE_VALUE);
+
+	public static final String PROTOBUF_VALUE = "application/x-protobuf";
+
+	public static final MediaType PROTOBUF = MediaType.valueOf(PROTOBUF_VALUE);
+
+	// representations of a single book, in the order of the produces conditions
+	static final List<MediaType> BOOK = List.of(MediaType.APPLICATION_JSON, SMILE, MediaType.APPLICATION_CBOR, PROTOBUF);
+
+	private BookMediaTypes() {
+	}
+
+	// the representation that the message converters write for the Accept header, JSON when it accepts any
+	static MediaType select(String accept, List<MediaType> producible) {
+		if (accept == null)
+			return producible.get(0);
+		List<MediaType> acceptable;
+		try {
+			acceptable = MediaType.parseMediaTypes(accept);
+		} catch (InvalidMediaTypeException ex) {
+			return producible.get(0);
+		}
+		MediaType.sortBySpecificityAndQuality(acceptable);
+		for (MediaType mediaType : acceptable) {
+			for (MediaType candidate : producible) {
+				if (mediaType.getQualityValue() > 0 && mediaType.isCompatibleWith(candidate))
+					return candidate;
+			}
+		}
+		return producible.get(0);
+	}
+
+}
@@ -0,0 +1,227 @@
+package com.smk.example.spring.boot.rest.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smk.example.spring.boot.rest.service.BookService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caches the encoded bodies of the list endpoints, {@code /books} and
+ * {@code /books/}, keyed by query string (page, size, sort, fields) and Accept
+ * header. A hit is written from the cached bytes, gzipped beforehand when large
+ * enough, without reaching the controller, the database, the mapper or the
+ * message converters.
+ * <p>
+ * Each body is cached with the catalog version it was read at, the one of the
+ * list entity tags, and is only served while no write has been committed since.
+ */
+public class BookResponseCacheFilter extends OncePerRequestFilter {
+
+	public static final String CACHE_NAME = "bookResponses";
+
+	private static final String KEY_ATTRIBUTE = BookResponseCacheFilter.class.getName() + ".KEY";
+
+	private static final String VERSION_ATTRIBUTE = BookResponseCacheFilter.class.getName() + ".VERSION";
+
+	private static final String GZIP = "gzip";
+
+	// written by the filter itself, or by the container
+	private static final Set<String> UNCACHED_HEADERS = Set.of("content-type", "content-length", "content-encoding",
+			"transfer-encoding", "date");
+
+	// sent again with a 304, as RFC 7232 requires of the headers a 200 would have carried
+	private static final List<String> NOT_MODIFIED_HEADERS = List.of(HttpHeaders.ETAG, HttpHeaders.VARY,
+			HttpHeaders.CACHE_CONTROL, HttpHeaders.EXPIRES, HttpHeaders.CONTENT_LOCATION);
+
+	private final BookService bookService;
+
+	private final Cache<String, EncodedResponse> cache;
+
+	private final int minCompressionSize;
+
+	// version of the cached bodies, the cache is cleared as soon as a later one is seen
+	private volatile String version;
+
+	public BookResponseCacheFilter(BookService bookService, MeterRegistry meterRegistry, long maximumSize,
+			int minCompressionSize) {
+		this.bookService = bookService;
+		this.cache = Caffeine.newBuilder().maximumWeight(maximumSize)
+				.weigher((String key, EncodedResponse response) -> response.weight()).recordStats().build();
+		this.minCompressionSize = minCompressionSize;
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !HttpMethod.GET.matches(request.getMethod());
+	}
+
+	// handlers run asynchronously in the ASYNC execution mode, their body is then complete on the async dispatch
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		HttpServletResponse responseToUse = response;
+		if (!isAsyncDispatch(request)) {
+			String catalogVersion = bookService.getCatalogVersion();
+			String key = key(request);
+			EncodedResponse cached = lookup(key, catalogVersion);
+			if (cached != null) {
+				write(cached, request, response);
+				return;
+			}
+			request.setAttribute(KEY_ATTRIBUTE, key);
+			request.setAttribute(VERSION_ATTRIBUTE, catalogVersion);
+			responseToUse = new ContentCachingResponseWrapper(response);
+		}
+		filterChain.doFilter(request, responseToUse);
+		if (!isAsyncStarted(request))
+			store(request, responseToUse);
+	}
+
+	private EncodedResponse lookup(String key, String catalogVersion) {
+		if (!catalogVersion.equals(version)) {
+			version = catalogVersion;
+			cache.invalidateAll();
+			return null;
+		}
+		EncodedResponse cached = cache.getIfPresent(key);
+		return cached != null && cached.version.equals(catalogVersion) ? cached : null;
+	}
+
+	private void store(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		ContentCachingResponseWrapper wrapper = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+		if (wrapper == null)
+			return;
+		String key = (String) request.getAttribute(KEY_ATTRIBUTE);
+		String catalogVersion = (String) request.getAttribute(VERSION_ATTRIBUTE);
+		// errors, 304s and bodies read after a concurrent write are not cached
+		if (wrapper.getStatus() == HttpStatus.OK.value() && wrapper.getContentType() != null
+				&& wrapper.getHeader(HttpHeaders.ETAG) != null && catalogVersion.equals(version)) {
+			byte[] body = wrapper.getContentAsByteArray();
+			byte[] gzipBody = body.length >= minCompressionSize ? gzip(body) : null;
+			cache.put(key, new EncodedResponse(catalogVersion, wrapper.getContentType(), headers(wrapper),
+					wrapper.getHeader(HttpHeaders.ETAG), body, gzipBody));
+		}
+		wrapper.copyBodyToResponse();
+	}
+
+	private static void write(EncodedResponse cached, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		if (ETags.matchesWeakly(request.getHeader(HttpHeaders.IF_NONE_MATCH), cached.etag)) {
+			response.setStatus(HttpStatus.NOT_MODIFIED.value());
+			for (String name : NOT_MODIFIED_HEADERS)
+				cached.headers.getOrEmpty(name).forEach(value -> response.addHeader(name, value));
+			if (cached.gzipBody != null)
+				response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			return;
+		}
+		byte[] body = cached.body;
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(cached.contentType);
+		cached.headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+		if (cached.gzipBody != null) {
+			response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			if (acceptsGzip(request)) {
+				response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+				body = cached.gzipBody;
+			}
+		}
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+
+	// the headers set by the handler, among which Vary: Accept and the ETag; containers keep the content type apart
+	private static HttpHeaders headers(HttpServletResponse response) {
+		HttpHeaders headers = new HttpHeaders();
+		for (String name : response.getHeaderNames()) {
+			if (!UNCACHED_HEADERS.contains(name.toLowerCase(Locale.ROOT)))
+				headers.addAll(name, List.copyOf(response.getHeaders(name)));
+		}
+		return HttpHeaders.readOnlyHttpHeaders(headers);
+	}
+
+	// the Accept header selects the representation, and the pretty parameter of JSON is in the query string
+	private static String key(HttpServletRequest request) {
+		return request.getRequestURI() + '?' + StringUtils.trimAllWhitespace(String.valueOf(request.getQueryString()))
+				+ '|' + request.getHeader(HttpHeaders.ACCEPT);
+	}
+
+	private static boolean acceptsGzip(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		if (acceptEncoding == null)
+			return false;
+		for (String coding : StringUtils.commaDelimitedListToStringArray(acceptEncoding)) {
+			String[] parameters = coding.split(";");
+			if (GZIP.equalsIgnoreCase(parameters[0].trim()))
+				return parameters.length == 1 || !parameters[1].trim().matches("q=0(\\.0*)?");
+		}
+		return false;
+	}
+
+	private static byte[] gzip(byte[] body) throws IOException {
+		ByteArrayOutputStream gzipBody = new ByteArrayOutputStream(body.length / 4);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(gzipBody)) {
+			gzip.write(body);
+		}
+		return gzipBody.toByteArray();
+	}
+
+	private static final class EncodedResponse {
+
+		private final String version;
+
+		private final String contentType;
+
+		private final HttpHeaders headers;
+
+		private final String etag;
+
+		private final byte[] body;
+
+		// null when the body is under the compression threshold
+		private final byte[] gzipBody;
+
+		EncodedResponse(String version, String contentType, HttpHeaders headers, String etag, byte[] body,
+				byte[] gzipBody) {
+			this.version = version;
+			this.contentType = contentType;
+			this.headers = headers;
+			this.etag = etag;
+			this.body = body;
+			this.gzipBody = gzipBody;
+		}
+
+		int weight() {
+			return body.length + (gzipBody == null ? 0 : gzipBody.length);
+		}
+
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.smk.example.spring.boot.rest.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+/**
+ * Entity tags of book representations and the comparisons used by the
+ * If-None-Match and If-Match preconditions (RFC 7232).
+ */
+final class ETags {
+
+	private static final String WEAK_PREFIX = "W/";
+
+	private ETags() {
+	}
+
+	// a book changes version on every update, so id, version and media type identify its representation
+	static String strong(Long id, Long version, MediaType mediaType) {
+		return "\"" + id + "-" + version + "-" + mediaType.getSubtype() + "\"";
+	}
+
+	static String weak(String value) {
+		return WEAK_PREFIX + "\"" + value + "\"";
+	}
+
+	// If-None-Match uses the weak comparison: only the opaque tags are compared
+	static boolean matchesWeakly(String header, String etag) {
+		return matches(header, etag, false);
+	}
+
+	// If-Match uses the strong comparison: weak tags never match
+	static boolean matchesStrongly(String header, String etag) {
+		return matches(header, etag, true);
+	}
+
+	// the tag of any representation of the version is a precondition on the book itself
+	static boolean matchesStrongly(String header, Long id, Long version) {
+		for (MediaType mediaType : BookMediaTypes.BOOK) {
+			if (matchesStrongly(header, strong(id, version, mediaType)))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean matches(String header, String etag, boolean strong) {
+		if (!StringUtils.hasText(header))
+			return false;
+		if ("*".equals(header.trim()))
+			return true;
+		for (String candidate : StringUtils.commaDelimitedListToStringArray(header)) {
+			candidate = candidate.trim();
+			if (strong && (candidate.startsWith(WEAK_PREFIX) || etag.startsWith(WEAK_PREFIX)))
+				continue;
+			if (opaqueTag(candidate).equals(opaqueTag(etag)))
+				return true;
+		}
+		return false;
+	}
+
+	private static String opaqueTag(String etag) {
+		return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+	}
+
+}
@@ -0,0 +1,205 @@
+package com.smk.example.spring.boot.rest.controller;
+
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Valid;
+import javax.validation.Validator;
+import javax.validation.constraints.Min;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.smk.example.spring.boot.rest.entity.BookRecord;
+import com.smk.example.spring.boot.rest.exception.BookNotFoundException;
+import com.smk.example.spring.boot.rest.exception.NoBookFoundException;
+import com.smk.example.spring.boot.rest.mapper.BookMapper;
+import com.smk.example.spring.boot.rest.model.BookModel;
+import com.smk.example.spring.boot.rest.model.BookModel.OnUpdate;
+import com.smk.example.spring.boot.rest.patch.BookPatch;
+import com.smk.example.spring.boot.rest.patch.BookPatchCompiler;
+import com.smk.example.spring.boot.rest.service.ReactiveBookService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux variant of {@link BookController}, active with the {@code reactive}
+ * profile. It covers the read, write and patch endpoints; the conditional
+ * requests, scroll, export, bulk and change feed endpoints are only served by
+ * the servlet stack.
+ */
+@RestController
+@RequestMapping(path = "/books")
+@Slf4j
+@Validated
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveBookController {
+
+	private final ReactiveBookService bookService;
+
+	private final BookMapper bookMapper;
+
+	private final BookPatchCompiler bookPatchCompiler;
+
+	private final Validator validator;
+
+	public ReactiveBookController(ReactiveBookService bookService, BookMapper bookMapper,
+			BookPatchCompiler bookPatchCompiler, Validator validator) {
+		this.bookService = bookService;
+		this.bookMapper = bookMapper;
+		this.bookPatchCompiler = bookPatchCompiler;
+		this.validator = validator;
+	}
+
+	@Operation(summary = "Get book by ID")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Book is found"),
+			@ApiResponse(responseCode = "404", description = "Book is not found") })
+	@GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<BookModel> getBook(@Parameter(description = "ID of book to search") @PathVariable @Min(1) Long id) {
+		log.info("HTTP GET Book with id {}", id);
+		return bookService.getBookById(id).switchIfEmpty(Mono.error(() -> new BookNotFoundException(id)));
+	}
+
+	@Operation(summary = "Get book by title and optional author")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Book is found"),
+			@ApiResponse(responseCode = "404", description = "Book is not found") })
+	@GetMapping(path = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<BookModel> getBookByTitleAndOptionalAuthor(
+			@Parameter(description = "Title of book to search") @RequestParam String title,
+			@Parameter(description = "Author of book to search (optional)") @RequestParam(required = false) Optional<String> author) {
+		log.info("HTTP GET Book with title and optional author");
+		if (author.isPresent())
+			return bookService.getBookByTitleAndAuthor(title, author.get())
+					.switchIfEmpty(Mono.error(() -> new BookNotFoundException(title, author.get())));
+		return bookService.getBookByTitle(title).switchIfEmpty(Mono.error(() -> new BookNotFoundException(title)));
+	}
+
+	@Operation(summary = "Get all books ordered by title, streamed as they are read")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "All books are found"),
+			@ApiResponse(responseCode = "404", description = "No book is found") })
+	@GetMapping(path = "/", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+	public Flux<BookModel> getAllBooks() {
+		log.info("HTTP GET all Book");
+		// rows are requested from the driver only as fast as the client reads the response
+		return bookService.getAllBooks().switchIfEmpty(Flux.error(NoBookFoundException::new));
+	}
+
+	@Operation(summary = "Get all books by pages")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "All books are found"),
+			@ApiResponse(responseCode = "404", description = "No book is found") })
+	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<Page<BookModel>> getAllBooks(Pageable pageable) {
+		log.info("HTTP GET all Book by Page");
+		return bookService.getAllBooks(pageable).filter(books -> !books.getContent().isEmpty())
+				.switchIfEmpty(Mono.error(NoBookFoundException::new));
+	}
+
+	@Operation(summary = "Add new book")
+	@ApiResponses(value = { @ApiResponse(responseCode = "201", description = "Book added successfully") })
+	@PostMapping(path = "/", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseStatus(HttpStatus.CREATED)
+	public Mono<BookModel> createBook(@Valid @RequestBody BookModel bookModel) {
+		log.info("HTTP POST new Book {}", bookModel);
+		return bookService.saveBook(bookModel, new BookRecord());
+	}
+
+	@Operation(summary = "Update book by ID, or add it if it does not exist")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Book updated successfully"),
+			@ApiResponse(responseCode = "201", description = "Book added successfully"),
+			@ApiResponse(responseCode = "409", description = "Book has been updated by another user") })
+	@PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<BookModel>> updateBook(
+			@Parameter(description = "ID of the book to update") @PathVariable @Min(1) Long id,
+			@Validated(OnUpdate.class) @RequestBody BookModel bookModel) {
+		log.info("HTTP PUT Book {})", bookModel);
+		return bookService.getBookRecordById(id)
+				.flatMap(bookRecord -> bookService.saveBook(bookModel, bookRecord).map(ResponseEntity::ok))
+				.switchIfEmpty(Mono.defer(() -> {
+					//R2DBC inserts only a record without a version, the one of the request is checked on updates
+					bookModel.setVersion(null);
+					return bookService.saveBook(bookModel, new BookRecord())
+							.map(saved -> ResponseEntity.status(HttpStatus.CREATED).body(saved));
+				}));
+	}
+
+	@Operation(summary = "Merge book by ID")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Book updated successfully"),
+			@ApiResponse(responseCode = "404", description = "Book is not found") })
+	@PatchMapping(path = "/merge/{id}", consumes = "application/merge-patch+json", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<BookModel> mergeBook(@Parameter(description = "ID of book to merge") @PathVariable @Min(1) Long id,
+			ServerHttpRequest request) {
+		log.info("HTTP MERGE PATCH Book with id {}", id);
+		return applyPatch(id, request, bookPatchCompiler::compileMergePatch);
+	}
+
+	@Operation(summary = "Patch book by ID")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Book updated successfully"),
+			@ApiResponse(responseCode = "404", description = "Book is not found") })
+	@PatchMapping(path = "/patch/{id}", consumes = "application/json-patch+json", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<BookModel> patchBook(@Parameter(description = "ID of book to patch") @PathVariable @Min(1) Long id,
+			ServerHttpRequest request) {
+		log.info("HTTP PATCH Book with id {}", id);
+		return applyPatch(id, request, bookPatchCompiler::compileJsonPatch);
+	}
+
+	@Operation(summary = "Delete book by ID")
+	@ApiResponses(value = { @ApiResponse(responseCode = "204", description = "Book deleted successfully"),
+			@ApiResponse(responseCode = "404", description = "Book is not found") })
+	@DeleteMapping(path = "/{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public Mono<Void> deleteBook(@Parameter(description = "ID of book to delete") @PathVariable @Min(1) Long id) {
+		log.info("HTTP DELETE Book with id {}", id);
+		return bookService.deleteBook(id)
+				.flatMap(deleted -> deleted ? Mono.<Void>empty() : Mono.error(new BookNotFoundException(id)));
+	}
+
+	private Mono<BookModel> applyPatch(Long id, ServerHttpRequest request, Function<InputStream, BookPatch> compiler) {
+		// a patch document is small, so it is joined into one buffer and compiled like on the servlet stack
+		Mono<BookPatch> patch = DataBufferUtils.join(request.getBody())
+				.map(buffer -> compiler.apply(buffer.asInputStream(true)))
+				.switchIfEmpty(Mono.fromCallable(() -> compiler.apply(InputStream.nullInputStream())));
+		return patch.zipWith(bookService.getBookRecordById(id)
+				.switchIfEmpty(Mono.error(() -> new BookNotFoundException(id)))).flatMap(patchAndRecord -> {
+					BookRecord bookRecord = patchAndRecord.getT2();
+					BookModel bookModel = bookMapper.toModel(bookRecord);
+					Set<String> touched = patchAndRecord.getT1().apply(bookModel);
+					Set<ConstraintViolation<BookModel>> violations = new HashSet<ConstraintViolation<BookModel>>();
+					for (String property : touched)
+						violations.addAll(validator.validateProperty(bookModel, property));
+					if (!violations.isEmpty())
+						return Mono.error(new ConstraintViolationException(violations));
+					return bookService.saveBook(bookModel, bookRecord);
+				});
+	}
+
+}
@@ -10,18 +10,26 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import javax.persistence.Version;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Past;
-import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.Size;
 
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.KeywordField;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import com.fasterxml.jackson.annotation.JsonValue;
+import com.smk.example.spring.boot.rest.config.BookAnalysisConfigurer;
+import com.smk.example.spring.boot.rest.validation.Isbn;
+import com.smk.example.spring.boot.rest.validation.Isbns;
 
 import lombok.AccessLevel;
 import lombok.Data;
@@ -31,6 +39,15 @@ import lombok.Setter;
 import lombok.ToString;
 
 @Entity
+// title alone serves title lookups and the title ordered scroll and export, title and author serves the combined search
+@Table(indexes = { @Index(name = "idx_book_title", columnList = "title"),
+		@Index(name = "idx_book_title_author", columnList = "title, author"),
+		@Index(name = "idx_book_author", columnList = "author"),
+		@Index(name = "idx_book_publisher", columnList = "publisher"),
+		@Index(name = "idx_book_publication_date", columnList = "publicationDate"),
+		@Index(name = Book.NORMALIZED_ISBN_INDEX, columnList = "normalizedIsbn", unique = true) })
+// full-text index of title, author, publisher and isbn, updated by Hibernate Search when a transaction commits
+@Indexed(index = "book")
 @Data
 @EqualsAndHashCode(callSuper = true)
 @ToString(callSuper=true)
@@ -52,18 +69,27 @@ public class Book extends DateAudit implements Serializable {
 	@Setter(value = AccessLevel.NONE)
 	private static final long serialVersionUID = 4171805558809613766L;
 
+	// named by the database in the message of a violation
+	public static final String NORMALIZED_ISBN_INDEX = "uk_book_normalized_isbn";
+
+	// a pooled sequence rather than IDENTITY so that Hibernate can batch inserts
 	@Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+	@SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
 	private Long id;
 	
 	@NotBlank
     @Size(min = 1, max = 255)
 	@Column(nullable = false, length = 255)
+	@FullTextField(analyzer = BookAnalysisConfigurer.BOOK)
+	@FullTextField(name = "title_prefix", analyzer = BookAnalysisConfigurer.BOOK_PREFIX, searchAnalyzer = BookAnalysisConfigurer.BOOK)
 	private String title;
 	
 	@NotBlank
     @Size(min = 1, max = 255)
 	@Column(nullable = false, length = 255)
+	@FullTextField(analyzer = BookAnalysisConfigurer.BOOK)
+	@FullTextField(name = "author_prefix", analyzer = BookAnalysisConfigurer.BOOK_PREFIX, searchAnalyzer = BookAnalysisConfigurer.BOOK)
 	private String author;
 	
 	@NotNull
@@ -74,11 +100,19 @@ public class Book extends DateAudit implements Serializable {
 	@NotBlank
     @Size(min = 1, max = 255)
 	@Column(length = 255)
+	@FullTextField(analyzer = BookAnalysisConfigurer.BOOK)
+	@FullTextField(name = "publisher_prefix", analyzer = BookAnalysisConfigurer.BOOK_PREFIX, searchAnalyzer = BookAnalysisConfigurer.BOOK)
 	private String publisher;
 	
-    @Pattern(regexp="^(?:ISBN(?:-1[03])?:? )?(?=[0-9X]{10}$|(?=(?:[0-9]+[- ]){3})[- 0-9X]{13}$|97[89][0-9]{10}$|(?=(?:[0-9]+[- ]){4})[- 0-9]{17}$)(?:97[89][- ]?)?[0-9]{1,5}[- ]?[0-9]+[- ]?[0-9]+[- ]?[0-9X]$")
+    @Isbn
+    @KeywordField(normalizer = BookAnalysisConfigurer.ISBN)
     private String isbn;
     
+	// the 13 digits of isbn, derived from it, on which exact lookups are made and uniqueness is enforced
+	@Setter(value = AccessLevel.NONE)
+	@Column(length = 13)
+	private String normalizedIsbn;
+    
 	@Enumerated(EnumType.STRING)
 	private Format format;
 	
@@ -88,5 +122,10 @@ public class Book extends DateAudit implements Serializable {
 	
 	@Version
 	private Long version;	
+	
+	public void setIsbn(String isbn) {
+		this.isbn = isbn;
+		this.normalizedIsbn = Isbns.normalize(isbn);
+	}
 		
 }
@@ -0,0 +1,71 @@
+package com.smk.example.spring.boot.rest.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Bulk import of a catalog file, and its checkpoint: the offset and line up to
+ * which the rows of the file have been committed, updated in the transaction
+ * of each chunk of books so that a resumed import neither skips nor repeats
+ * rows.
+ */
+@Entity
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class BookImport extends DateAudit {
+
+	public enum Format {
+		// comma separated values with a header line naming the properties of BookModel, one book per line
+		CSV,
+		// newline delimited JSON documents of BookModel
+		NDJSON
+	}
+
+	public enum State {
+		RUNNING, COMPLETED, FAILED
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false, length = 1024)
+	private String path;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private Format format;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private State state;
+
+	// size and modification time of the file when the import started; a resumed import requires both unchanged
+	private long size;
+
+	private long lastModified;
+
+	// bytes and lines of the file committed so far, the header line of a CSV file included; OFFSET is an SQL keyword
+	@Column(name = "file_offset")
+	private long offset;
+
+	private long line;
+
+	private long imported;
+
+	private long rejected;
+
+	@Column(length = 1000)
+	private String failure;
+
+}
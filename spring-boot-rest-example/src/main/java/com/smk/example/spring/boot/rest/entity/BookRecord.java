@@ -0,0 +1,63 @@
+package com.smk.example.spring.boot.rest.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+import com.smk.example.spring.boot.rest.entity.Book.Format;
+import com.smk.example.spring.boot.rest.validation.Isbns;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Setter;
+
+/**
+ * R2DBC mapping of the table of {@link Book}, used by the reactive variant of
+ * the API. The table and its sequence are created by Hibernate.
+ */
+@Table("book")
+@Data
+public class BookRecord {
+
+	// assigned from book_seq before insert, see ReactiveBookConfig
+	@Id
+	private Long id;
+
+	private String title;
+
+	private String author;
+
+	private LocalDate publicationDate;
+
+	private String publisher;
+
+	private String isbn;
+
+	// kept in line with isbn as in Book, the column has a unique index
+	@Setter(value = AccessLevel.NONE)
+	private String normalizedIsbn;
+
+	private Format format;
+
+	private Integer pages;
+
+	@CreatedDate
+	private LocalDateTime createdDate;
+
+	@LastModifiedDate
+	private LocalDateTime updatedDate;
+
+	@Version
+	private Long version;
+
+	public void setIsbn(String isbn) {
+		this.isbn = isbn;
+		this.normalizedIsbn = Isbns.normalize(isbn);
+	}
+
+}
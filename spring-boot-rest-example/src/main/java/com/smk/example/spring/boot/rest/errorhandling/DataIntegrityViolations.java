@@ -0,0 +1,21 @@
+package com.smk.example.spring.boot.rest.errorhandling;
+
+import java.util.Locale;
+
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+
+final class DataIntegrityViolations {
+
+	private DataIntegrityViolations() {
+	}
+
+	// the database names the violated index in its message, whether the book is written through JPA or R2DBC
+	static boolean isDuplicateIsbn(DataIntegrityViolationException exception) {
+		String message = NestedExceptionUtils.getMostSpecificCause(exception).getMessage();
+		return message != null && message.toLowerCase(Locale.ROOT).contains(Book.NORMALIZED_ISBN_INDEX);
+	}
+
+}
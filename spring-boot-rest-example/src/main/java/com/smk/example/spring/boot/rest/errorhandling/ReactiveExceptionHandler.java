@@ -0,0 +1,158 @@
+package com.smk.example.spring.boot.rest.errorhandling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import com.smk.example.spring.boot.rest.exception.BookNotFoundException;
+import com.smk.example.spring.boot.rest.exception.InvalidPatchException;
+import com.smk.example.spring.boot.rest.exception.NoBookFoundException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+// the errors of the reactive variant mapped to the same statuses and messages as RestExceptionHandler; requests
+// matching no handler (404, 405, 415) fail before any handler runs and are left to the default error handler
+@Slf4j
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+	private final MeterRegistry meterRegistry;
+
+	public ReactiveExceptionHandler(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@ExceptionHandler({ WebExchangeBindException.class })
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ResponseEntity<ErrorResponse> handleWebExchangeBind(WebExchangeBindException ex) {
+		log.error("Argument annotated with @Valid failed validation", ex);
+		List<String> errorMessages = new ArrayList<String>();
+		for (FieldError error : ex.getBindingResult().getFieldErrors()) {
+			errorMessages.add(error.getField() + " " + error.getDefaultMessage());
+		}
+		for (ObjectError error : ex.getBindingResult().getGlobalErrors()) {
+			errorMessages.add(error.getObjectName() + " " + error.getDefaultMessage());
+		}
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessages);
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler({ ServerWebInputException.class })
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ResponseEntity<ErrorResponse> handleServerWebInput(ServerWebInputException ex) {
+		log.error("Request with missing, mistyped or malformed input", ex);
+		String errorMessage = ex.getReason();
+		if (ex.getCause() instanceof DecodingException)
+			errorMessage = "Malformed JSON request";
+		else if (ex.getCause() instanceof TypeMismatchException && ex.getMethodParameter() != null)
+			errorMessage = ex.getMethodParameter().getParameterName() + " should be of type "
+					+ ((TypeMismatchException) ex.getCause()).getRequiredType().getSimpleName();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler({ ConstraintViolationException.class })
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ResponseEntity<ErrorResponse> handleConstraintViolation(ConstraintViolationException ex) {
+		log.error("Constraint violation encountered", ex);
+		List<String> errorMessages = new ArrayList<String>();
+		for (ConstraintViolation<?> violation : ex.getConstraintViolations()) {
+			errorMessages.add(violation.getRootBeanClass().getSimpleName() + " " + violation.getPropertyPath() + " "
+					+ violation.getMessage());
+		}
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessages);
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler({ OptimisticLockingFailureException.class })
+	@ResponseStatus(HttpStatus.CONFLICT)
+	public ResponseEntity<ErrorResponse> handleOptimisticLocking(OptimisticLockingFailureException ex) {
+		log.error("Optimistic Locking encountered", ex);
+		String errorMessage = "The record has been updated by another user; please reload it and resubmit your changes";
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.CONFLICT);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.CONFLICT);
+	}
+
+	@ExceptionHandler({ DataIntegrityViolationException.class })
+	@ResponseStatus(HttpStatus.CONFLICT)
+	public ResponseEntity<ErrorResponse> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+		log.error("Data integrity violation", ex);
+		String errorMessage = DataIntegrityViolations.isDuplicateIsbn(ex)
+				? "The book conflicts with an existing book; ISBNs must be unique"
+				: "The book violates a constraint of the catalog";
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.CONFLICT);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.CONFLICT);
+	}
+
+	@ExceptionHandler({ BookNotFoundException.class })
+	@ResponseStatus(HttpStatus.NOT_FOUND)
+	public ResponseEntity<ErrorResponse> handleBookNotFound(BookNotFoundException ex) {
+		log.error("Book not found", ex);
+		String errorMessage = ex.getLocalizedMessage();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.NOT_FOUND);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.NOT_FOUND);
+	}
+
+	@ExceptionHandler({ NoBookFoundException.class })
+	@ResponseStatus(HttpStatus.NOT_FOUND)
+	public ResponseEntity<ErrorResponse> handleNoBookFound(NoBookFoundException ex) {
+		log.error("No book found", ex);
+		String errorMessage = ex.getLocalizedMessage();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.NOT_FOUND);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.NOT_FOUND);
+	}
+
+	@ExceptionHandler({ InvalidPatchException.class })
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ResponseEntity<ErrorResponse> handleInvalidPatch(InvalidPatchException ex) {
+		log.error("Invalid patch document", ex);
+		String errorMessage = ex.getLocalizedMessage();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler({ Exception.class })
+	@ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+	public ResponseEntity<ErrorResponse> handleUncaughtException(Exception ex) {
+		log.error("Uncaught exception", ex);
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), "An error has occurred");
+		countError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+	}
+
+	private void countError(Exception ex, HttpStatus status) {
+		Counter.builder("book.errors").description("Errors returned by the book API")
+				.tag("exception", ex.getClass().getSimpleName()).tag("status", String.valueOf(status.value()))
+				.register(meterRegistry).increment();
+	}
+
+}
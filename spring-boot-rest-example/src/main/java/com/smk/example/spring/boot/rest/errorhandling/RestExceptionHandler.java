@@ -6,37 +6,63 @@ import java.util.List;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.converter.HttpMessageNotWritableException;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
-import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 
 import com.smk.example.spring.boot.rest.exception.BookNotFoundException;
+import com.smk.example.spring.boot.rest.exception.ChangesExpiredException;
+import com.smk.example.spring.boot.rest.exception.ImportInProgressException;
+import com.smk.example.spring.boot.rest.exception.ImportNotFoundException;
+import com.smk.example.spring.boot.rest.exception.InvalidCursorException;
+import com.smk.example.spring.boot.rest.exception.InvalidFieldsException;
+import com.smk.example.spring.boot.rest.exception.InvalidFilterException;
+import com.smk.example.spring.boot.rest.exception.InvalidImportException;
+import com.smk.example.spring.boot.rest.exception.InvalidPatchException;
+import com.smk.example.spring.boot.rest.exception.InvalidSortException;
 import com.smk.example.spring.boot.rest.exception.NoBookFoundException;
+import com.smk.example.spring.boot.rest.exception.PreconditionFailedException;
+import com.smk.example.spring.boot.rest.exception.ServiceUnavailableException;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = Type.SERVLET)
 public class RestExceptionHandler {
 
-	@ExceptionHandler({ MethodArgumentNotValidException.class })
+	private final MeterRegistry meterRegistry;
+
+	public RestExceptionHandler(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	// also the query parameters bound to an object, of which MethodArgumentNotValidException is the request body case
+	@ExceptionHandler({ BindException.class })
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
-	public ResponseEntity<ErrorResponse> handleMethodArgumentNotValid(MethodArgumentNotValidException ex, WebRequest request) {
-		log.error("Argument annotated with @Valid failed validation", ex);
+	public ResponseEntity<ErrorResponse> handleMethodArgumentNotValid(BindException ex, WebRequest request) {
+		log.error("Argument annotated with @Valid failed binding or validation", ex);
 		List<String> errorMessages = new ArrayList<String>();
 		for (FieldError error : ex.getBindingResult().getFieldErrors()) {
 			errorMessages.add(error.getField() + " " + error.getDefaultMessage());
@@ -45,6 +71,7 @@ public class RestExceptionHandler {
 			errorMessages.add(error.getObjectName() + " " + error.getDefaultMessage());
 		}
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessages);
+		countError(ex, HttpStatus.BAD_REQUEST);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
 	}
 
@@ -55,6 +82,7 @@ public class RestExceptionHandler {
 		log.error("Request with missing parameter", ex);
 		String errorMessage = ex.getParameterName() + " parameter is missing";
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.BAD_REQUEST);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
 	}
 
@@ -64,6 +92,7 @@ public class RestExceptionHandler {
 		log.error("Uable to deserialize from JSON", ex);
 		String errorMessage = "Malformed JSON request";
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.BAD_REQUEST);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
 	}
 
@@ -73,6 +102,7 @@ public class RestExceptionHandler {
 		log.error("Unable to serialize to JSON", ex);
 		String errorMessage = "Error encountered while serializing to JSON";
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
 	}
 
@@ -86,6 +116,7 @@ public class RestExceptionHandler {
 					+ violation.getMessage());
 		}
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessages);
+		countError(ex, HttpStatus.BAD_REQUEST);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
 	}
 
@@ -95,6 +126,7 @@ public class RestExceptionHandler {
 		log.error("Method argument is not the expected type", ex);
 		String errorMessage = ex.getName() + " should be of type " + ex.getRequiredType().getSimpleName();
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.BAD_REQUEST);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
 	}
 
@@ -108,6 +140,7 @@ public class RestExceptionHandler {
 		builder.append(" method is not supported for this request; supported methods are: ");
 		ex.getSupportedHttpMethods().forEach(t -> builder.append(t + "; "));
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), builder.toString());
+		countError(ex, HttpStatus.METHOD_NOT_ALLOWED);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.METHOD_NOT_ALLOWED);
 	}
 
@@ -120,6 +153,7 @@ public class RestExceptionHandler {
 		builder.append(" media type is not supported; supported media types are: ");
 		ex.getSupportedMediaTypes().forEach(t -> builder.append(t + "; "));
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), builder.toString());
+		countError(ex, HttpStatus.UNSUPPORTED_MEDIA_TYPE);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.UNSUPPORTED_MEDIA_TYPE);
 	}
 
@@ -129,15 +163,70 @@ public class RestExceptionHandler {
 		log.error("Optimistic Locking encountered", ex);
 		String errorMessage = "The record has been updated by another user; please reload it and resubmit your changes";
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.CONFLICT);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.CONFLICT);
 	}
 
+	@ExceptionHandler({ DataIntegrityViolationException.class })
+	@ResponseStatus(HttpStatus.CONFLICT)
+	public ResponseEntity<ErrorResponse> handleDataIntegrityViolation(DataIntegrityViolationException ex, WebRequest request) {
+		log.error("Data integrity violation", ex);
+		String errorMessage = DataIntegrityViolations.isDuplicateIsbn(ex)
+				? "The book conflicts with an existing book; ISBNs must be unique"
+				: "The book violates a constraint of the catalog";
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.CONFLICT);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.CONFLICT);
+	}
+
+	@ExceptionHandler({ PreconditionFailedException.class })
+	@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+	public ResponseEntity<ErrorResponse> handlePreconditionFailed(PreconditionFailedException ex, WebRequest request) {
+		log.error("Precondition failed", ex);
+		String errorMessage = "The record has been updated by another user; please reload it and resubmit your changes";
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.PRECONDITION_FAILED);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.PRECONDITION_FAILED);
+	}
+
+	@ExceptionHandler({ ChangesExpiredException.class })
+	@ResponseStatus(HttpStatus.GONE)
+	public ResponseEntity<ErrorResponse> handleChangesExpired(ChangesExpiredException ex, WebRequest request) {
+		log.error("Changes expired", ex);
+		String errorMessage = ex.getLocalizedMessage();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.GONE);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.GONE);
+	}
+
+	@ExceptionHandler({ ServiceUnavailableException.class })
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	public ResponseEntity<ErrorResponse> handleServiceUnavailable(ServiceUnavailableException ex, WebRequest request) {
+		log.error("Request handlers saturated", ex);
+		String errorMessage = "The service is busy; please retry later";
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter())).body(errorResponse);
+	}
+
+	@ExceptionHandler({ AsyncRequestTimeoutException.class })
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	public ResponseEntity<ErrorResponse> handleAsyncRequestTimeout(AsyncRequestTimeoutException ex, WebRequest request) {
+		log.error("Request timed out", ex);
+		String errorMessage = "The request could not be completed in time";
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
 	@ExceptionHandler({ BookNotFoundException.class })
 	@ResponseStatus(HttpStatus.NOT_FOUND)
 	public ResponseEntity<ErrorResponse> handleBookNotFound(BookNotFoundException ex, WebRequest request) {
 		log.error("Book not found", ex);
 		String errorMessage = ex.getLocalizedMessage();
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.NOT_FOUND);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.NOT_FOUND);
 	}
 
@@ -147,15 +236,97 @@ public class RestExceptionHandler {
 		log.error("No book found", ex);
 		String errorMessage = ex.getLocalizedMessage();
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.NOT_FOUND);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.NOT_FOUND);
+	}
+
+	@ExceptionHandler({ InvalidCursorException.class })
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException ex, WebRequest request) {
+		log.error("Invalid cursor", ex);
+		String errorMessage = ex.getLocalizedMessage();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler({ InvalidFieldsException.class })
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ResponseEntity<ErrorResponse> handleInvalidFields(InvalidFieldsException ex, WebRequest request) {
+		log.error("Invalid fields", ex);
+		String errorMessage = ex.getLocalizedMessage();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler({ ImportNotFoundException.class })
+	@ResponseStatus(HttpStatus.NOT_FOUND)
+	public ResponseEntity<ErrorResponse> handleImportNotFound(ImportNotFoundException ex, WebRequest request) {
+		log.error("Import not found", ex);
+		String errorMessage = ex.getLocalizedMessage();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.NOT_FOUND);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.NOT_FOUND);
 	}
 
+	@ExceptionHandler({ InvalidImportException.class })
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ResponseEntity<ErrorResponse> handleInvalidImport(InvalidImportException ex, WebRequest request) {
+		log.error("Invalid import", ex);
+		String errorMessage = ex.getLocalizedMessage();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler({ ImportInProgressException.class })
+	@ResponseStatus(HttpStatus.CONFLICT)
+	public ResponseEntity<ErrorResponse> handleImportInProgress(ImportInProgressException ex, WebRequest request) {
+		log.error("Import in progress", ex);
+		String errorMessage = ex.getLocalizedMessage();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.CONFLICT);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.CONFLICT);
+	}
+
+	@ExceptionHandler({ InvalidFilterException.class })
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ResponseEntity<ErrorResponse> handleInvalidFilter(InvalidFilterException ex, WebRequest request) {
+		log.error("Invalid filter", ex);
+		String errorMessage = ex.getLocalizedMessage();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler({ InvalidSortException.class })
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ResponseEntity<ErrorResponse> handleInvalidSort(InvalidSortException ex, WebRequest request) {
+		log.error("Invalid sort", ex);
+		String errorMessage = ex.getLocalizedMessage();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
+	}
+
+	@ExceptionHandler({ InvalidPatchException.class })
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ResponseEntity<ErrorResponse> handleInvalidPatch(InvalidPatchException ex, WebRequest request) {
+		log.error("Invalid patch document", ex);
+		String errorMessage = ex.getLocalizedMessage();
+		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.BAD_REQUEST);
+		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.BAD_REQUEST);
+	}
+
 	@ExceptionHandler({ NoHandlerFoundException.class })
 	@ResponseStatus(HttpStatus.NOT_FOUND)
 	public ResponseEntity<ErrorResponse> handleNoHandlerFoundException(NoHandlerFoundException ex, WebRequest request) {
 		log.error("No handler found", ex);
 		String errorMessage = "No handler found for " + ex.getHttpMethod() + " " + ex.getRequestURL();
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), errorMessage);
+		countError(ex, HttpStatus.NOT_FOUND);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.NOT_FOUND);
 	}
 
@@ -164,7 +335,15 @@ public class RestExceptionHandler {
 	public ResponseEntity<ErrorResponse> handleUncaughtException(Exception ex, WebRequest request) {
 		log.error("Uncaught exception", ex);
 		final ErrorResponse errorResponse = new ErrorResponse(ex.getLocalizedMessage(), "An error has occurred");
+		countError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
 		return new ResponseEntity<ErrorResponse>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
 	}
 
-}
\ No newline at end of file
+	// one counter per exception type and status, e.g. 404 for a missing book or 409 for an optimistic lock failure
+	private void countError(Exception ex, HttpStatus status) {
+		Counter.builder("book.errors").description("Errors returned by the book API")
+				.tag("exception", ex.getClass().getSimpleName()).tag("status", String.valueOf(status.value()))
+				.register(meterRegistry).increment();
+	}
+
+}
@@ -15,4 +15,12 @@ public class BookNotFoundException extends RuntimeException {
 	public BookNotFoundException(String title, String author) {
         super(String.format("Book with title %s and author %s not found", title, author));
     }
+	
+	private BookNotFoundException(String message, Throwable cause) {
+		super(message, cause);
+	}
+	
+	public static BookNotFoundException withIsbn(String isbn) {
+		return new BookNotFoundException(String.format("Book with ISBN %s not found", isbn), (Throwable) null);
+	}
 }
@@ -0,0 +1,10 @@
+package com.smk.example.spring.boot.rest.exception;
+
+public class ChangesExpiredException extends RuntimeException {
+
+	private static final long serialVersionUID = 7719043584201496315L;
+
+	public ChangesExpiredException(long since) {
+        super(String.format("Changes since %d are no longer available; reload the catalog and resume from the latest sequence", since));
+    }
+}
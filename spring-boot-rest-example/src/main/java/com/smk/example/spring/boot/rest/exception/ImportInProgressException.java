@@ -0,0 +1,10 @@
+package com.smk.example.spring.boot.rest.exception;
+
+public class ImportInProgressException extends RuntimeException {
+
+	private static final long serialVersionUID = 1842286503571964920L;
+
+	public ImportInProgressException(Long id) {
+        super(String.format("Import with id %d is running; only one import runs at a time", id));
+    }
+}
@@ -0,0 +1,10 @@
+package com.smk.example.spring.boot.rest.exception;
+
+public class ImportNotFoundException extends RuntimeException {
+
+	private static final long serialVersionUID = 5309218471652098412L;
+
+	public ImportNotFoundException(Long id) {
+        super(String.format("Import with id %d not found", id));
+    }
+}
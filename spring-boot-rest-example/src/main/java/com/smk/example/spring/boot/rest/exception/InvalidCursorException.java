@@ -0,0 +1,10 @@
+package com.smk.example.spring.boot.rest.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+	private static final long serialVersionUID = 5931047288713472719L;
+
+	public InvalidCursorException(String cursor) {
+        super(String.format("Cursor %s is not valid", cursor));
+    }
+}
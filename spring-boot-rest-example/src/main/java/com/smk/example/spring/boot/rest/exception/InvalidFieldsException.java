@@ -0,0 +1,10 @@
+package com.smk.example.spring.boot.rest.exception;
+
+public class InvalidFieldsException extends RuntimeException {
+
+	private static final long serialVersionUID = -2874045123557930382L;
+
+	public InvalidFieldsException(String fields) {
+        super(String.format("Fields %s are not a comma separated list of properties of book", fields));
+    }
+}
@@ -0,0 +1,10 @@
+package com.smk.example.spring.boot.rest.exception;
+
+public class InvalidFilterException extends RuntimeException {
+
+	private static final long serialVersionUID = 6120459823127403651L;
+
+	public InvalidFilterException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.smk.example.spring.boot.rest.exception;
+
+public class InvalidImportException extends RuntimeException {
+
+	private static final long serialVersionUID = -6417730255248119734L;
+
+	public InvalidImportException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.smk.example.spring.boot.rest.exception;
+
+public class InvalidPatchException extends RuntimeException {
+
+	private static final long serialVersionUID = -3087365526203485127L;
+
+	public InvalidPatchException(String message) {
+        super(message);
+    }
+
+	public InvalidPatchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,10 @@
+package com.smk.example.spring.boot.rest.exception;
+
+public class InvalidSortException extends RuntimeException {
+
+	private static final long serialVersionUID = -4518290372360981745L;
+
+	public InvalidSortException(String property) {
+        super(String.format("Books cannot be sorted by %s, which no index orders", property));
+    }
+}
@@ -0,0 +1,10 @@
+package com.smk.example.spring.boot.rest.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+	private static final long serialVersionUID = 2269381946201733590L;
+
+	public PreconditionFailedException(Long id) {
+        super(String.format("Book with id %d does not match the entity tag of the request", id));
+    }
+}
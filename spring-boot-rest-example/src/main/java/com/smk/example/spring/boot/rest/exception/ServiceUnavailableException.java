@@ -0,0 +1,17 @@
+package com.smk.example.spring.boot.rest.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = 5316052447690281174L;
+
+	private final long retryAfter;
+
+	public ServiceUnavailableException(long retryAfter) {
+		super(String.format("All request handlers are busy; retry after %d seconds", retryAfter));
+		this.retryAfter = retryAfter;
+	}
+
+	public long getRetryAfter() {
+		return retryAfter;
+	}
+}
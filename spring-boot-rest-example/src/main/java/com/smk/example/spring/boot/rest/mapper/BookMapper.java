@@ -0,0 +1,87 @@
+package com.smk.example.spring.boot.rest.mapper;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.modelmapper.ModelMapper;
+import org.modelmapper.TypeMap;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.entity.BookRecord;
+import com.smk.example.spring.boot.rest.model.BookModel;
+
+import io.micrometer.core.annotation.Timed;
+
+/**
+ * Maps between {@link Book} entities, or the {@link BookRecord}s of the
+ * reactive variant, and {@link BookModel} representations.
+ * <p>
+ * The type maps are created once at startup and shared by every request, so
+ * the reflective introspection of {@link Book} and {@link BookModel} is not
+ * repeated per call. {@link ModelMapper} is thread-safe once its type maps are
+ * registered.
+ */
+@Component
+public class BookMapper {
+
+	private final TypeMap<Book, BookModel> toModelTypeMap;
+
+	private final TypeMap<BookModel, Book> toEntityTypeMap;
+
+	private final TypeMap<BookRecord, BookModel> recordToModelTypeMap;
+
+	private final TypeMap<BookModel, BookRecord> toRecordTypeMap;
+
+	public BookMapper() {
+		ModelMapper modelMapper = new ModelMapper();
+		this.toModelTypeMap = modelMapper.createTypeMap(Book.class, BookModel.class);
+		// id is generated by the database; audit dates have no setters and are
+		// populated by the auditing listener; version is kept so that the version
+		// supplied by the client is checked by optimistic locking
+		this.toEntityTypeMap = modelMapper.createTypeMap(BookModel.class, Book.class).addMappings(mapper -> {
+			mapper.skip(Book::setId);
+		});
+		// the record of the reactive variant has setters for its audit dates, so they are skipped explicitly
+		this.recordToModelTypeMap = modelMapper.createTypeMap(BookRecord.class, BookModel.class);
+		this.toRecordTypeMap = modelMapper.createTypeMap(BookModel.class, BookRecord.class).addMappings(mapper -> {
+			mapper.skip(BookRecord::setId);
+			mapper.skip(BookRecord::setCreatedDate);
+			mapper.skip(BookRecord::setUpdatedDate);
+		});
+	}
+
+	@Timed("book.mapper")
+	public BookModel toModel(Book book) {
+		return toModelTypeMap.map(book);
+	}
+
+	@Timed("book.mapper")
+	public List<BookModel> toModels(List<Book> books) {
+		return books.stream().map(this::toModel).collect(Collectors.toList());
+	}
+
+	@Timed("book.mapper")
+	public Page<BookModel> toModels(Page<Book> books) {
+		return books.map(this::toModel);
+	}
+
+	@Timed("book.mapper")
+	public Book toEntity(BookModel bookModel, Book book) {
+		toEntityTypeMap.map(bookModel, book);
+		return book;
+	}
+
+	@Timed("book.mapper")
+	public BookModel toModel(BookRecord bookRecord) {
+		return recordToModelTypeMap.map(bookRecord);
+	}
+
+	@Timed("book.mapper")
+	public BookRecord toRecord(BookModel bookModel, BookRecord bookRecord) {
+		toRecordTypeMap.map(bookModel, bookRecord);
+		return bookRecord;
+	}
+
+}
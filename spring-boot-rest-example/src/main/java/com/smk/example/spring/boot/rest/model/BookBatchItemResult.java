@@ -0,0 +1,30 @@
+package com.smk.example.spring.boot.rest.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookBatchItemResult {
+
+	public enum Status {
+		CREATED, INVALID, FAILED
+	}
+
+	// position of the item in the request
+	private int index;
+
+	private Status status;
+
+	private Long id;
+
+	private List<String> errors;
+
+}
@@ -0,0 +1,29 @@
+package com.smk.example.spring.boot.rest.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.smk.example.spring.boot.rest.model.BookBatchItemResult.Status;
+
+import lombok.Data;
+
+@Data
+public class BookBatchResult {
+
+	private int created;
+
+	private int rejected;
+
+	private List<BookBatchItemResult> items = new ArrayList<BookBatchItemResult>();
+
+	public void addCreated(int index, Long id) {
+		created++;
+		items.add(new BookBatchItemResult(index, Status.CREATED, id, null));
+	}
+
+	public void addRejected(int index, Status status, List<String> errors) {
+		rejected++;
+		items.add(new BookBatchItemResult(index, status, null, errors));
+	}
+
+}
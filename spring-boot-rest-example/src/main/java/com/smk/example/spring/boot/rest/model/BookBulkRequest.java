@@ -0,0 +1,35 @@
+package com.smk.example.spring.boot.rest.model;
+
+import java.util.List;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of the bulk endpoints that select books by id, for lists of ids too
+ * long for a query string. The ids are matched {@link BookFilter#MAX_IDS} at a
+ * time.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBulkRequest {
+
+	// all the books are deleted or updated in one transaction, which this bounds
+	public static final int MAX_IDS = 100000;
+
+	@NotEmpty
+	@Size(max = MAX_IDS)
+	private List<@NotNull Long> ids;
+
+	// JSON Merge Patch document, only read by the update
+	private JsonNode patch;
+
+}
@@ -0,0 +1,15 @@
+package com.smk.example.spring.boot.rest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBulkResult {
+
+	// number of books deleted or updated
+	private long affected;
+
+}
@@ -0,0 +1,30 @@
+package com.smk.example.spring.boot.rest.model;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Value;
+
+@Value
+public class BookChange {
+
+	public enum Type {
+		CREATED, UPDATED, DELETED
+	}
+
+	private long sequence;
+
+	private Type type;
+
+	private Long id;
+
+	// state of the book after the change, absent for a deletion
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private BookModel book;
+
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd/MM/yyyy hh:mm:ss a")
+	private LocalDateTime timestamp;
+
+}
@@ -0,0 +1,19 @@
+package com.smk.example.spring.boot.rest.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChangePage {
+
+	private List<BookChange> changes;
+
+	// sequence to pass as since in the next request
+	private long latest;
+
+}
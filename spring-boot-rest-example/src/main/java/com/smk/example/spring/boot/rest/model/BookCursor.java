@@ -0,0 +1,68 @@
+package com.smk.example.spring.boot.rest.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.exception.InvalidCursorException;
+
+import lombok.Value;
+
+/**
+ * Position of a client in a keyset (seek) scroll over the catalog. It is handed
+ * to clients as an opaque URL-safe token holding the sort key of the last book
+ * of the previous page.
+ */
+@Value
+public class BookCursor {
+
+	public enum Key {
+		TITLE, ID
+	}
+
+	private static final String SEPARATOR = ":";
+
+	private Key key;
+
+	private Long id;
+
+	private String title;
+
+	public static BookCursor first(Key key) {
+		return new BookCursor(key, null, null);
+	}
+
+	public static BookCursor after(Key key, Book book) {
+		return new BookCursor(key, book.getId(), key == Key.TITLE ? book.getTitle() : null);
+	}
+
+	public boolean isFirst() {
+		return id == null;
+	}
+
+	public String encode() {
+		String value = key.name() + SEPARATOR + id + (key == Key.TITLE ? SEPARATOR + title : "");
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static BookCursor decode(String token) {
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			// title is last and may itself contain the separator
+			String[] parts = value.split(SEPARATOR, 3);
+			Key key = Key.valueOf(parts[0]);
+			Long id = Long.valueOf(parts[1]);
+			if (key == Key.TITLE) {
+				if (parts.length != 3)
+					throw new InvalidCursorException(token);
+				return new BookCursor(key, id, parts[2]);
+			}
+			if (parts.length != 2)
+				throw new InvalidCursorException(token);
+			return new BookCursor(key, id, null);
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException exception) {
+			throw new InvalidCursorException(token);
+		}
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.smk.example.spring.boot.rest.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookCursorPage {
+
+	private List<BookModel> content;
+
+	// continuation token of the next page, null on the last page
+	private String next;
+
+	// only computed on request since it costs a full count of the catalog
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private Long totalElements;
+
+}
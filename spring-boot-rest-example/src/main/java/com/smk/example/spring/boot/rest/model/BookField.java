@@ -0,0 +1,80 @@
+package com.smk.example.spring.boot.rest.model;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.smk.example.spring.boot.rest.exception.InvalidFieldsException;
+
+/**
+ * The properties of a book that can be selected with the {@code fields}
+ * parameter. A property has the same name in BookModel, in its JSON document
+ * and in the Book entity.
+ */
+public enum BookField {
+
+	ID("id", BookModel::getId, null),
+	TITLE("title", BookModel::getTitle, null),
+	AUTHOR("author", BookModel::getAuthor, null),
+	// same patterns as the @JsonFormat of BookModel
+	PUBLICATION_DATE("publicationDate", BookModel::getPublicationDate, DateTimeFormatter.ofPattern("dd/MM/yyyy")),
+	PUBLISHER("publisher", BookModel::getPublisher, null),
+	ISBN("isbn", BookModel::getIsbn, null),
+	FORMAT("format", BookModel::getFormat, null),
+	PAGES("pages", BookModel::getPages, null),
+	UPDATED_DATE("updatedDate", BookModel::getUpdatedDate, DateTimeFormatter.ofPattern("dd/MM/yyyy hh:mm:ss a")),
+	CREATED_DATE("createdDate", BookModel::getCreatedDate, DateTimeFormatter.ofPattern("dd/MM/yyyy hh:mm:ss a")),
+	VERSION("version", BookModel::getVersion, null);
+
+	private final String property;
+
+	private final Function<BookModel, Object> getter;
+
+	private final DateTimeFormatter formatter;
+
+	private BookField(String property, Function<BookModel, Object> getter, DateTimeFormatter formatter) {
+		this.property = property;
+		this.getter = getter;
+		this.formatter = formatter;
+	}
+
+	public String getProperty() {
+		return property;
+	}
+
+	/**
+	 * Parses a comma separated list of property names, such as
+	 * {@code id,title,author}.
+	 */
+	public static EnumSet<BookField> parse(String fields) {
+		EnumSet<BookField> bookFields = EnumSet.noneOf(BookField.class);
+		for (String name : fields.split(","))
+			bookFields.add(of(name.trim()).orElseThrow(() -> new InvalidFieldsException(fields)));
+		return bookFields;
+	}
+
+	Object get(BookModel bookModel) {
+		return getter.apply(bookModel);
+	}
+
+	void write(Object value, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+		if (value != null && formatter != null)
+			generator.writeString(formatter.format((TemporalAccessor) value));
+		else
+			serializers.defaultSerializeValue(value, generator);
+	}
+
+	private static Optional<BookField> of(String property) {
+		for (BookField field : values()) {
+			if (field.property.equals(property))
+				return Optional.of(field);
+		}
+		return Optional.empty();
+	}
+
+}
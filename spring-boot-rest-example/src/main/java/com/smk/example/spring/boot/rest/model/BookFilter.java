@@ -0,0 +1,76 @@
+package com.smk.example.spring.boot.rest.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import com.smk.example.spring.boot.rest.entity.Book.Format;
+
+import io.swagger.v3.oas.annotations.Parameter;
+import lombok.Data;
+
+/**
+ * Criteria of the paged list and of the bulk endpoints, bound from their query
+ * parameters. A book is selected when it meets all the given criteria, and
+ * ranges include their bounds.
+ */
+@Data
+public class BookFilter {
+
+	// ids are matched with an IN list, whose length databases limit
+	public static final int MAX_IDS = 1000;
+
+	@Parameter(description = "Author of the books")
+	private String author;
+
+	@Parameter(description = "Publisher of the books")
+	private String publisher;
+
+	@Parameter(description = "Format of the books")
+	private Format format;
+
+	@Parameter(description = "Minimum number of pages of the books")
+	@Positive
+	private Integer pagesMin;
+
+	@Parameter(description = "Maximum number of pages of the books")
+	@Positive
+	private Integer pagesMax;
+
+	@Parameter(description = "Earliest publication date of the books, e.g. 01/01/2000")
+	@DateTimeFormat(pattern = "dd/MM/yyyy")
+	private LocalDate publishedFrom;
+
+	@Parameter(description = "Latest publication date of the books, e.g. 31/12/2009")
+	@DateTimeFormat(pattern = "dd/MM/yyyy")
+	private LocalDate publishedTo;
+
+	// kept short enough for a URL, longer lists are given in the body of POST /books/delete and /books/merge
+	@Parameter(description = "Comma separated IDs of the books, at most 1000; longer lists go in the body of POST /books/delete and /books/merge")
+	@Size(max = MAX_IDS)
+	private List<Long> ids;
+
+	// the same criteria on other ids, null for any
+	public BookFilter withIds(List<Long> ids) {
+		BookFilter filter = new BookFilter();
+		filter.author = author;
+		filter.publisher = publisher;
+		filter.format = format;
+		filter.pagesMin = pagesMin;
+		filter.pagesMax = pagesMax;
+		filter.publishedFrom = publishedFrom;
+		filter.publishedTo = publishedTo;
+		filter.ids = ids;
+		return filter;
+	}
+
+	public boolean isEmpty() {
+		return author == null && publisher == null && format == null && pagesMin == null && pagesMax == null
+				&& publishedFrom == null && publishedTo == null && ids == null;
+	}
+
+}
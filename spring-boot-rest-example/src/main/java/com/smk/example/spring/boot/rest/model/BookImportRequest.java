@@ -0,0 +1,24 @@
+package com.smk.example.spring.boot.rest.model;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+import com.smk.example.spring.boot.rest.entity.BookImport.Format;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportRequest {
+
+	// relative to book.import.directory
+	@NotBlank
+	private String path;
+
+	@NotNull
+	private Format format;
+
+}
@@ -0,0 +1,52 @@
+package com.smk.example.spring.boot.rest.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.smk.example.spring.boot.rest.entity.BookImport.Format;
+import com.smk.example.spring.boot.rest.entity.BookImport.State;
+
+import lombok.Data;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookImportStatus {
+
+	private Long id;
+
+	private String path;
+
+	private Format format;
+
+	private State state;
+
+	private long size;
+
+	// committed bytes and lines of the file, and the committed share of its bytes in percent
+	private long offset;
+
+	private long line;
+
+	private double progress;
+
+	private long imported;
+
+	private long rejected;
+
+	// rows committed per second since the import was started or resumed, while it runs
+	private Long rowsPerSecond;
+
+	// first rejected rows, by line of the file, kept in memory while the application runs
+	private List<BookBatchItemResult> rejects;
+
+	private String failure;
+
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd/MM/yyyy hh:mm:ss a")
+	private LocalDateTime createdDate;
+
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd/MM/yyyy hh:mm:ss a")
+	private LocalDateTime updatedDate;
+
+}
@@ -0,0 +1,51 @@
+package com.smk.example.spring.boot.rest.model;
+
+import java.io.IOException;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * A book reduced to the properties selected with the {@code fields} parameter,
+ * written as the same JSON document as its BookModel without the other
+ * properties. The values are usually those of a row of a projection query.
+ */
+public class BookView extends JsonSerializable.Base {
+
+	private final BookField[] fields;
+
+	private final Object[] values;
+
+	public BookView(BookField[] fields, Object[] values) {
+		this.fields = fields;
+		this.values = values;
+	}
+
+	public static BookView of(BookModel bookModel, Set<BookField> fields) {
+		BookField[] viewFields = fields.toArray(new BookField[0]);
+		Object[] values = new Object[viewFields.length];
+		for (int i = 0; i < viewFields.length; i++)
+			values[i] = viewFields[i].get(bookModel);
+		return new BookView(viewFields, values);
+	}
+
+	@Override
+	public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+		generator.writeStartObject();
+		for (int i = 0; i < fields.length; i++) {
+			generator.writeFieldName(fields[i].getProperty());
+			fields[i].write(values[i], generator, serializers);
+		}
+		generator.writeEndObject();
+	}
+
+	@Override
+	public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer)
+			throws IOException {
+		serialize(generator, serializers);
+	}
+
+}
@@ -0,0 +1,148 @@
+package com.smk.example.spring.boot.rest.patch;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.util.ReflectionUtils;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.smk.example.spring.boot.rest.exception.InvalidPatchException;
+import com.smk.example.spring.boot.rest.model.BookModel;
+
+/**
+ * A JSON Patch or JSON Merge Patch document compiled by {@link BookPatchCompiler}
+ * into operations on {@link BookModel} properties. Values are bound with the
+ * application's {@link com.fasterxml.jackson.databind.ObjectMapper}, so the
+ * formats declared on BookModel apply as they do for a request body.
+ */
+public final class BookPatch {
+
+	enum Op {
+		ADD, REMOVE, REPLACE, MOVE, COPY, TEST
+	}
+
+	static final class Property {
+
+		private final String name;
+
+		private final Method getter;
+
+		private final Method setter;
+
+		// properties such as the audit dates are read-only in JSON and are left unchanged by a patch
+		private final boolean writable;
+
+		Property(String name, Method getter, Method setter, boolean writable) {
+			this.name = name;
+			this.getter = getter;
+			this.setter = setter;
+			this.writable = writable;
+		}
+
+		String getName() {
+			return name;
+		}
+
+		boolean isAssignableFrom(Property property) {
+			return getter.getReturnType().equals(property.getter.getReturnType());
+		}
+
+		Object get(BookModel bookModel) {
+			return ReflectionUtils.invokeMethod(getter, bookModel);
+		}
+
+		boolean set(BookModel bookModel, Object value) {
+			if (!writable)
+				return false;
+			ReflectionUtils.invokeMethod(setter, bookModel, value);
+			return true;
+		}
+
+	}
+
+	static final class Operation {
+
+		private final Op op;
+
+		private final Property path;
+
+		private final Property from;
+
+		// the value wrapped as { "property": value } so it binds like a request body
+		private final TokenBuffer value;
+
+		Operation(Op op, Property path, Property from, TokenBuffer value) {
+			this.op = op;
+			this.path = path;
+			this.from = from;
+			this.value = value;
+		}
+
+	}
+
+	private final ObjectReader bookModelReader;
+
+	private final List<Operation> operations;
+
+	BookPatch(ObjectReader bookModelReader, List<Operation> operations) {
+		this.bookModelReader = bookModelReader;
+		this.operations = operations;
+	}
+
+	/**
+	 * Applies the operations in order to the given model.
+	 *
+	 * @return the names of the properties changed by the patch
+	 */
+	public Set<String> apply(BookModel bookModel) {
+		Set<String> touched = new LinkedHashSet<String>();
+		for (Operation operation : operations) {
+			switch (operation.op) {
+			case ADD:
+			case REPLACE:
+				if (operation.path.writable) {
+					bind(bookModel, operation);
+					touched.add(operation.path.getName());
+				}
+				break;
+			case REMOVE:
+				if (operation.path.set(bookModel, null))
+					touched.add(operation.path.getName());
+				break;
+			case MOVE:
+				Object moved = operation.from.get(bookModel);
+				if (operation.from.set(bookModel, null))
+					touched.add(operation.from.getName());
+				if (operation.path.set(bookModel, moved))
+					touched.add(operation.path.getName());
+				break;
+			case COPY:
+				if (operation.path.set(bookModel, operation.from.get(bookModel)))
+					touched.add(operation.path.getName());
+				break;
+			case TEST:
+				BookModel expected = new BookModel();
+				bind(expected, operation);
+				if (!Objects.equals(operation.path.get(expected), operation.path.get(bookModel)))
+					throw new InvalidPatchException(String.format("Test failed for path /%s", operation.path.getName()));
+				break;
+			}
+		}
+		return touched;
+	}
+
+	private void bind(BookModel bookModel, Operation operation) {
+		try {
+			bookModelReader.withValueToUpdate(bookModel).readValue(operation.value.asParser());
+		} catch (IOException exception) {
+			throw new InvalidPatchException(
+					String.format("Value for path /%s is not valid", operation.path.getName()), exception);
+		}
+	}
+
+}
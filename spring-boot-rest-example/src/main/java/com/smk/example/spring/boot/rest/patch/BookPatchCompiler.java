@@ -0,0 +1,197 @@
+package com.smk.example.spring.boot.rest.patch;
+
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.smk.example.spring.boot.rest.exception.InvalidPatchException;
+import com.smk.example.spring.boot.rest.model.BookModel;
+import com.smk.example.spring.boot.rest.patch.BookPatch.Op;
+import com.smk.example.spring.boot.rest.patch.BookPatch.Operation;
+import com.smk.example.spring.boot.rest.patch.BookPatch.Property;
+
+import io.micrometer.core.annotation.Timed;
+
+/**
+ * Compiles JSON Patch (RFC 6902) and JSON Merge Patch (RFC 7396) documents
+ * against the properties of {@link BookModel}. The document is read with a
+ * streaming parser and every path is resolved to a property up front, so no
+ * JSON tree is built for either the document or the model.
+ */
+@Component
+public class BookPatchCompiler {
+
+	private final ObjectMapper objectMapper;
+
+	private final ObjectReader bookModelReader;
+
+	// BookModel properties keyed by their JSON name
+	private final Map<String, Property> properties = new HashMap<String, Property>();
+
+	public BookPatchCompiler(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+		this.bookModelReader = objectMapper.readerFor(BookModel.class);
+		for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(BookModel.class)) {
+			Field field = ReflectionUtils.findField(BookModel.class, descriptor.getName());
+			if (field == null || descriptor.getReadMethod() == null)
+				continue;
+			JsonProperty jsonProperty = field.getAnnotation(JsonProperty.class);
+			boolean writable = descriptor.getWriteMethod() != null
+					&& (jsonProperty == null || jsonProperty.access() != JsonProperty.Access.READ_ONLY);
+			properties.put(descriptor.getName(), new Property(descriptor.getName(), descriptor.getReadMethod(),
+					descriptor.getWriteMethod(), writable));
+		}
+	}
+
+	@Timed("book.patch.compile")
+	public BookPatch compileJsonPatch(InputStream body) {
+		try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY)
+				throw new InvalidPatchException("JSON Patch document must be an array of operations");
+			List<Operation> operations = new ArrayList<Operation>();
+			JsonToken token;
+			while ((token = parser.nextToken()) == JsonToken.START_OBJECT)
+				operations.add(compileOperation(parser));
+			if (token != JsonToken.END_ARRAY)
+				throw new InvalidPatchException("JSON Patch operation must be an object");
+			return new BookPatch(bookModelReader, operations);
+		} catch (JsonProcessingException exception) {
+			throw new InvalidPatchException("Malformed JSON Patch document", exception);
+		} catch (IOException exception) {
+			throw new InvalidPatchException("Unable to read JSON Patch document", exception);
+		}
+	}
+
+	@Timed("book.patch.compile")
+	public BookPatch compileMergePatch(InputStream body) {
+		try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+			return compileMergePatch(parser);
+		} catch (JsonProcessingException exception) {
+			throw new InvalidPatchException("Malformed JSON Merge Patch document", exception);
+		} catch (IOException exception) {
+			throw new InvalidPatchException("Unable to read JSON Merge Patch document", exception);
+		}
+	}
+
+	// a document that is part of a request body, and so already read
+	@Timed("book.patch.compile")
+	public BookPatch compileMergePatch(JsonNode document) {
+		if (document == null)
+			throw new InvalidPatchException("JSON Merge Patch document is missing");
+		try (JsonParser parser = objectMapper.treeAsTokens(document)) {
+			return compileMergePatch(parser);
+		} catch (IOException exception) {
+			throw new InvalidPatchException("Malformed JSON Merge Patch document", exception);
+		}
+	}
+
+	private BookPatch compileMergePatch(JsonParser parser) throws IOException {
+		// BookModel has no nested objects, so a merge patch is a replace of each member with null removing it
+		if (parser.nextToken() != JsonToken.START_OBJECT)
+			throw new InvalidPatchException("JSON Merge Patch document must be an object");
+		List<Operation> operations = new ArrayList<Operation>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			Property property = property("/" + parser.getCurrentName());
+			parser.nextToken();
+			operations.add(new Operation(Op.REPLACE, property, null, wrap(property, parser)));
+		}
+		return new BookPatch(bookModelReader, operations);
+	}
+
+	private Operation compileOperation(JsonParser parser) throws IOException {
+		String op = null;
+		String path = null;
+		String from = null;
+		TokenBuffer value = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String member = parser.getCurrentName();
+			parser.nextToken();
+			switch (member) {
+			case "op":
+				op = parser.getValueAsString();
+				parser.skipChildren();
+				break;
+			case "path":
+				path = parser.getValueAsString();
+				parser.skipChildren();
+				break;
+			case "from":
+				from = parser.getValueAsString();
+				parser.skipChildren();
+				break;
+			case "value":
+				value = new TokenBuffer(parser);
+				value.copyCurrentStructure(parser);
+				break;
+			default:
+				// members other than those defined by the operation are ignored
+				parser.skipChildren();
+			}
+		}
+		if (op == null || path == null)
+			throw new InvalidPatchException("JSON Patch operation must have op and path members");
+		Op operation;
+		try {
+			operation = Op.valueOf(op.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException exception) {
+			throw new InvalidPatchException(String.format("Operation %s is not supported", op));
+		}
+		Property pathProperty = property(path);
+		switch (operation) {
+		case ADD:
+		case REPLACE:
+		case TEST:
+			if (value == null)
+				throw new InvalidPatchException(String.format("Operation %s must have a value member", op));
+			return new Operation(operation, pathProperty, null, wrap(pathProperty, value.asParser()));
+		case MOVE:
+		case COPY:
+			if (from == null)
+				throw new InvalidPatchException(String.format("Operation %s must have a from member", op));
+			Property fromProperty = property(from);
+			if (!pathProperty.isAssignableFrom(fromProperty))
+				throw new InvalidPatchException(String.format("Value of %s cannot be assigned to %s", from, path));
+			return new Operation(operation, pathProperty, fromProperty, null);
+		default:
+			return new Operation(operation, pathProperty, null, null);
+		}
+	}
+
+	private Property property(String path) {
+		// BookModel is flat, so a valid JSON Pointer is a single reference token naming a property
+		Property property = path.startsWith("/") ? properties.get(path.substring(1)) : null;
+		if (property == null)
+			throw new InvalidPatchException(String.format("Path %s is not a property of book", path));
+		return property;
+	}
+
+	private TokenBuffer wrap(Property property, JsonParser value) throws IOException {
+		if (value.currentToken() == null)
+			value.nextToken();
+		TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+		buffer.writeStartObject();
+		buffer.writeFieldName(property.getName());
+		buffer.copyCurrentStructure(value);
+		buffer.writeEndObject();
+		return buffer;
+	}
+
+}
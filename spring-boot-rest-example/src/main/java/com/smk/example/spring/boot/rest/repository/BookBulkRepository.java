@@ -0,0 +1,27 @@
+package com.smk.example.spring.boot.rest.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.smk.example.spring.boot.rest.model.BookFilter;
+
+/**
+ * Set-based statements on many books at once. They bypass the persistence
+ * context, the entity listeners and Hibernate Search, so the caller keeps the
+ * caches, the change log and the full-text index up to date.
+ */
+public interface BookBulkRepository {
+
+	// in ascending order, and locked until the end of the transaction so that the books keep matching the filter
+	public List<Long> findIdsForUpdate(BookFilter filter);
+
+	// deletes the books of the given ids that match the filter
+	public int deleteMatching(BookFilter filter, Collection<Long> ids);
+
+	// sets the given properties, the updated date and the next version of the books of the given ids that match the
+	// filter
+	public int updateMatching(BookFilter filter, Collection<Long> ids, Map<String, Object> values, LocalDateTime updatedDate);
+
+}
@@ -0,0 +1,64 @@
+package com.smk.example.spring.boot.rest.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.model.BookFilter;
+
+class BookBulkRepositoryImpl implements BookBulkRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Long> findIdsForUpdate(BookFilter filter) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = builder.createQuery(Long.class);
+		Root<Book> book = query.from(Book.class);
+		query.select(book.get("id")).where(BookSpecifications.predicate(filter, book, builder))
+				.orderBy(builder.asc(book.get("id")));
+		return entityManager.createQuery(query).setLockMode(LockModeType.PESSIMISTIC_WRITE).getResultList();
+	}
+
+	@Override
+	public int deleteMatching(BookFilter filter, Collection<Long> ids) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaDelete<Book> delete = builder.createCriteriaDelete(Book.class);
+		Root<Book> book = delete.from(Book.class);
+		delete.where(BookSpecifications.predicate(filter, book, builder), book.get("id").in(ids));
+		return entityManager.createQuery(delete).executeUpdate();
+	}
+
+	@Override
+	public int updateMatching(BookFilter filter, Collection<Long> ids, Map<String, Object> values, LocalDateTime updatedDate) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Book> update = builder.createCriteriaUpdate(Book.class);
+		Root<Book> book = update.from(Book.class);
+		values.forEach((property, value) -> {
+			Path<Object> path = book.get(property);
+			// Hibernate does not take null as a literal
+			if (value == null)
+				update.<Object>set(path, builder.nullLiteral(path.getJavaType()));
+			else
+				update.<Object, Object>set(path, value);
+		});
+		Path<Long> version = book.get("version");
+		update.set(version, builder.sum(version, 1L)).set(book.<LocalDateTime>get("updatedDate"), updatedDate)
+				.where(BookSpecifications.predicate(filter, book, builder), book.get("id").in(ids));
+		return entityManager.createQuery(update).executeUpdate();
+	}
+
+}
@@ -0,0 +1,11 @@
+package com.smk.example.spring.boot.rest.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.smk.example.spring.boot.rest.entity.BookImport;
+
+@Repository
+public interface BookImportRepository extends JpaRepository<BookImport, Long> {
+
+}
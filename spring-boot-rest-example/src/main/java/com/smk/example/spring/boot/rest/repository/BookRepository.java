@@ -1,17 +1,71 @@
 package com.smk.example.spring.boot.rest.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.model.BookModel;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookViewRepository, BookBulkRepository {
+	
+	// version-only lookup used to evaluate conditional requests without loading the book
+	@Query("select b.version from Book b where b.id = :id")
+	public Optional<Long> findVersionById(@Param("id") Long id);
 	
 	public Optional<Book> findByTitle(String title);
 	
 	public Optional<Book> findByTitleAndAuthor(String title, String author);
+	
+	// projections straight into BookModel that skip entity instantiation and the persistence context
+	@Query("select new com.smk.example.spring.boot.rest.model.BookModel(b.id, b.title, b.author, b.publicationDate, b.publisher, "
+			+ "b.isbn, b.format, b.pages, b.updatedDate, b.createdDate, b.version) from Book b where b.title = :title")
+	public Optional<BookModel> findModelByTitle(@Param("title") String title);
+	
+	@Query("select new com.smk.example.spring.boot.rest.model.BookModel(b.id, b.title, b.author, b.publicationDate, b.publisher, "
+			+ "b.isbn, b.format, b.pages, b.updatedDate, b.createdDate, b.version) from Book b where b.title = :title and b.author = :author")
+	public Optional<BookModel> findModelByTitleAndAuthor(@Param("title") String title, @Param("author") String author);
+	
+	@Query("select new com.smk.example.spring.boot.rest.model.BookModel(b.id, b.title, b.author, b.publicationDate, b.publisher, "
+			+ "b.isbn, b.format, b.pages, b.updatedDate, b.createdDate, b.version) from Book b where b.normalizedIsbn = :isbn")
+	public Optional<BookModel> findModelByNormalizedIsbn(@Param("isbn") String normalizedIsbn);
+	
+	@Query("select b.normalizedIsbn from Book b where b.normalizedIsbn in :isbns")
+	public List<String> findNormalizedIsbns(@Param("isbns") Collection<String> normalizedIsbns);
+	
+	// pairs of normalized ISBN and id, from which the in-memory ISBN index is built
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	@Query("select b.normalizedIsbn, b.id from Book b where b.normalizedIsbn is not null")
+	public Stream<Object[]> streamNormalizedIsbns();
+	
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	@Query("select b from Book b order by b.title, b.id")
+	public Stream<Book> streamAllOrderByTitle();
+	
+	// keyset pagination: returning Slice fetches one extra row to detect a next page instead of running a count
+	@Query("select b from Book b order by b.title, b.id")
+	public Slice<Book> findSliceOrderByTitle(Pageable pageable);
+	
+	// the leading range on title lets the database seek the title index, which an outer or would prevent
+	@Query("select b from Book b where b.title >= :title and (b.title > :title or b.id > :id) order by b.title, b.id")
+	public Slice<Book> findSliceOrderByTitleAfter(@Param("title") String title, @Param("id") Long id, Pageable pageable);
+	
+	@Query("select b from Book b where b.id > :id order by b.id")
+	public Slice<Book> findSliceOrderByIdAfter(@Param("id") Long id, Pageable pageable);
 
 }
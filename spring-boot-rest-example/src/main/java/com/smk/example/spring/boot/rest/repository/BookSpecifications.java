@@ -0,0 +1,52 @@
+package com.smk.example.spring.boot.rest.repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.model.BookFilter;
+
+/**
+ * Specifications of books, which compile into the where clause of a single
+ * query together with its sort and page.
+ */
+public final class BookSpecifications {
+
+	private BookSpecifications() {
+	}
+
+	// the conjunction of the given criteria, none of which matches every book
+	public static Specification<Book> matching(BookFilter filter) {
+		return (book, query, builder) -> predicate(filter, book, builder);
+	}
+
+	// also the where clause of the bulk statements, which are not queries
+	static Predicate predicate(BookFilter filter, Root<Book> book, CriteriaBuilder builder) {
+		List<Predicate> predicates = new ArrayList<Predicate>(8);
+		if (filter.getAuthor() != null)
+			predicates.add(builder.equal(book.get("author"), filter.getAuthor()));
+		if (filter.getPublisher() != null)
+			predicates.add(builder.equal(book.get("publisher"), filter.getPublisher()));
+		if (filter.getFormat() != null)
+			predicates.add(builder.equal(book.get("format"), filter.getFormat()));
+		if (filter.getPagesMin() != null)
+			predicates.add(builder.greaterThanOrEqualTo(book.<Integer>get("pages"), filter.getPagesMin()));
+		if (filter.getPagesMax() != null)
+			predicates.add(builder.lessThanOrEqualTo(book.<Integer>get("pages"), filter.getPagesMax()));
+		if (filter.getPublishedFrom() != null)
+			predicates.add(builder.greaterThanOrEqualTo(book.<LocalDate>get("publicationDate"), filter.getPublishedFrom()));
+		if (filter.getPublishedTo() != null)
+			predicates.add(builder.lessThanOrEqualTo(book.<LocalDate>get("publicationDate"), filter.getPublishedTo()));
+		if (filter.getIds() != null)
+			predicates.add(book.get("id").in(filter.getIds()));
+		return builder.and(predicates.toArray(new Predicate[0]));
+	}
+
+}
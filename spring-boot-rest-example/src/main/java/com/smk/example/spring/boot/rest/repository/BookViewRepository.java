@@ -0,0 +1,28 @@
+package com.smk.example.spring.boot.rest.repository;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.model.BookField;
+import com.smk.example.spring.boot.rest.model.BookView;
+
+/**
+ * Projection queries selecting only the columns of the requested fields, whose
+ * rows are written as they are without loading entities.
+ */
+public interface BookViewRepository {
+
+	public List<BookView> findViews(Set<BookField> fields, Sort sort);
+
+	public Page<BookView> findViews(Set<BookField> fields, Specification<Book> specification, Pageable pageable);
+
+	// in the order of the ids, ids of missing books are skipped
+	public List<BookView> findViewsByIds(Set<BookField> fields, List<Long> ids);
+
+}
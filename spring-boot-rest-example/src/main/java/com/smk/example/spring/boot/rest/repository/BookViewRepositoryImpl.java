@@ -0,0 +1,108 @@
+package com.smk.example.spring.boot.rest.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.model.BookField;
+import com.smk.example.spring.boot.rest.model.BookView;
+
+class BookViewRepositoryImpl implements BookViewRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<BookView> findViews(Set<BookField> fields, Sort sort) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = builder.createTupleQuery();
+		Root<Book> book = query.from(Book.class);
+		query.multiselect(select(book, fields)).orderBy(QueryUtils.toOrders(sort, book, builder));
+		return toViews(fields, entityManager.createQuery(query).getResultList());
+	}
+
+	@Override
+	public Page<BookView> findViews(Set<BookField> fields, Specification<Book> specification, Pageable pageable) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = builder.createTupleQuery();
+		Root<Book> book = query.from(Book.class);
+		query.multiselect(select(book, fields)).where(specification.toPredicate(book, query, builder))
+				.orderBy(QueryUtils.toOrders(pageable.getSort(), book, builder));
+		TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+		if (pageable.isPaged())
+			typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+		List<BookView> views = toViews(fields, typedQuery.getResultList());
+		// the count is skipped when the page alone tells the total, as for findAll(Pageable)
+		return PageableExecutionUtils.getPage(views, pageable, () -> {
+			CriteriaQuery<Long> count = builder.createQuery(Long.class);
+			Root<Book> countedBook = count.from(Book.class);
+			count.select(builder.count(countedBook)).where(specification.toPredicate(countedBook, count, builder));
+			return entityManager.createQuery(count).getSingleResult();
+		});
+	}
+
+	@Override
+	public List<BookView> findViewsByIds(Set<BookField> fields, List<Long> ids) {
+		if (ids.isEmpty())
+			return new ArrayList<BookView>();
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = builder.createTupleQuery();
+		Root<Book> book = query.from(Book.class);
+		// the id leads each row so that the rows can be put back in the order of the ids
+		List<Selection<?>> selections = new ArrayList<Selection<?>>(fields.size() + 1);
+		selections.add(book.get(BookField.ID.getProperty()));
+		selections.addAll(select(book, fields));
+		query.multiselect(selections).where(book.get(BookField.ID.getProperty()).in(ids));
+		BookField[] viewFields = fields.toArray(new BookField[0]);
+		Map<Long, BookView> views = new HashMap<Long, BookView>(2 * ids.size());
+		for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+			Object[] row = tuple.toArray();
+			views.put((Long) row[0], new BookView(viewFields, Arrays.copyOfRange(row, 1, row.length)));
+		}
+		List<BookView> orderedViews = new ArrayList<BookView>(views.size());
+		for (Long id : ids) {
+			BookView view = views.get(id);
+			if (view != null)
+				orderedViews.add(view);
+		}
+		return orderedViews;
+	}
+
+	private static List<Selection<?>> select(Root<Book> book, Set<BookField> fields) {
+		List<Selection<?>> selections = new ArrayList<Selection<?>>(fields.size());
+		for (BookField field : fields)
+			selections.add(book.get(field.getProperty()));
+		return selections;
+	}
+
+	// tuples rather than arrays, which Hibernate replaces by the value itself when a single field is selected
+	private static List<BookView> toViews(Set<BookField> fields, List<Tuple> rows) {
+		// the rows are the values of the views, which share the array of fields
+		BookField[] viewFields = fields.toArray(new BookField[0]);
+		List<BookView> views = new ArrayList<BookView>(rows.size());
+		for (Tuple row : rows)
+			views.add(new BookView(viewFields, row.toArray()));
+		return views;
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.smk.example.spring.boot.rest.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+
+import com.smk.example.spring.boot.rest.entity.BookRecord;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveBookRepository extends R2dbcRepository<BookRecord, Long> {
+
+	public Mono<BookRecord> findByTitle(String title);
+
+	public Mono<BookRecord> findByTitleAndAuthor(String title, String author);
+
+	public Flux<BookRecord> findAllBy(Pageable pageable);
+
+	// ordered by the database on idx_book_title so that the rows can be streamed as they are read
+	public Flux<BookRecord> findAllByOrderByTitleAsc();
+
+}
@@ -0,0 +1,151 @@
+package com.smk.example.spring.boot.rest.service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.smk.example.spring.boot.rest.exception.ChangesExpiredException;
+import com.smk.example.spring.boot.rest.model.BookChange;
+import com.smk.example.spring.boot.rest.model.BookModel;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process log of the committed changes to the catalog, kept in a bounded
+ * ring buffer and keyed by a monotonic sequence number. Consumers read the
+ * changes since the last sequence they have seen, or subscribe to them as
+ * Server-Sent Events.
+ */
+@Component
+@Slf4j
+public class BookChangeLog {
+
+	private final BookChange[] buffer;
+
+	// sequences start from the startup time so that they keep increasing across restarts of the application
+	private final long firstSequence = System.currentTimeMillis() * 1000;
+
+	private long latestSequence = firstSequence;
+
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<Subscriber>();
+
+	// a single thread delivers events in sequence order without holding up the writers
+	private final ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+
+	public BookChangeLog(@Value("${book.changes.capacity}") int capacity) {
+		this.buffer = new BookChange[capacity];
+	}
+
+	public synchronized long getLatestSequence() {
+		return latestSequence;
+	}
+
+	public void append(BookChange.Type type, Long id, BookModel book) {
+		BookChange change;
+		synchronized (this) {
+			change = new BookChange(++latestSequence, type, id, book, LocalDateTime.now());
+			buffer[index(change.getSequence())] = change;
+		}
+		if (!subscribers.isEmpty())
+			dispatcher.execute(() -> subscribers.forEach(subscriber -> subscriber.send(change)));
+	}
+
+	public synchronized List<BookChange> since(long since, int limit) {
+		long oldest = Math.max(firstSequence + 1, latestSequence - buffer.length + 1);
+		if (since < oldest - 1 || since > latestSequence)
+			throw new ChangesExpiredException(since);
+		List<BookChange> changes = new ArrayList<BookChange>((int) Math.min(limit, latestSequence - since));
+		for (long sequence = since + 1; sequence <= latestSequence && changes.size() < limit; sequence++)
+			changes.add(buffer[index(sequence)]);
+		return changes;
+	}
+
+	public SseEmitter subscribe(long since) {
+		SseEmitter emitter = new SseEmitter();
+		Subscriber subscriber = new Subscriber(emitter, since);
+		emitter.onCompletion(() -> subscribers.remove(subscriber));
+		emitter.onTimeout(() -> subscribers.remove(subscriber));
+		emitter.onError(error -> subscribers.remove(subscriber));
+		// the subscriber is registered on the dispatcher once the changes made before it are replayed, so that no
+		// live change overtakes the replay; the subscriber skips those delivered twice
+		dispatcher.execute(() -> {
+			try {
+				since(since, buffer.length).forEach(subscriber::send);
+				if (subscriber.failed)
+					return;
+				subscribers.add(subscriber);
+				// changes appended during the replay were not queued for this subscriber, they are caught up here
+				since(subscriber.lastSequence, buffer.length).forEach(subscriber::send);
+			} catch (ChangesExpiredException exception) {
+				subscriber.reset();
+			}
+		});
+		return emitter;
+	}
+
+	@PreDestroy
+	public void close() {
+		dispatcher.shutdownNow();
+		subscribers.forEach(subscriber -> subscriber.emitter.complete());
+	}
+
+	private int index(long sequence) {
+		return (int) (sequence % buffer.length);
+	}
+
+	private final class Subscriber {
+
+		private final SseEmitter emitter;
+
+		private long lastSequence;
+
+		// set by the dispatcher when a send fails, the emitter is then completed
+		private boolean failed;
+
+		Subscriber(SseEmitter emitter, long lastSequence) {
+			this.emitter = emitter;
+			this.lastSequence = lastSequence;
+		}
+
+		void send(BookChange change) {
+			if (failed || change.getSequence() <= lastSequence)
+				return;
+			try {
+				emitter.send(SseEmitter.event().id(String.valueOf(change.getSequence()))
+						.name(change.getType().name()).data(change, MediaType.APPLICATION_JSON));
+				lastSequence = change.getSequence();
+			} catch (IOException | IllegalStateException exception) {
+				log.debug("Unable to send change {} to subscriber", change.getSequence(), exception);
+				failed = true;
+				subscribers.remove(this);
+				emitter.completeWithError(exception);
+			}
+		}
+
+		// the subscriber is too far behind, it has to reload the catalog before resuming from the latest sequence
+		void reset() {
+			try {
+				emitter.send(SseEmitter.event().name("RESET").data(Collections.singletonMap("latest", getLatestSequence()),
+						MediaType.APPLICATION_JSON));
+				emitter.complete();
+			} catch (IOException | IllegalStateException exception) {
+				emitter.completeWithError(exception);
+			}
+			subscribers.remove(this);
+		}
+
+	}
+
+}
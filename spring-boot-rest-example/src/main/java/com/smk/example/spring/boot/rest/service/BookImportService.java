@@ -0,0 +1,80 @@
+package com.smk.example.spring.boot.rest.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.entity.BookImport;
+import com.smk.example.spring.boot.rest.entity.BookImport.Format;
+import com.smk.example.spring.boot.rest.entity.BookImport.State;
+import com.smk.example.spring.boot.rest.exception.ImportNotFoundException;
+import com.smk.example.spring.boot.rest.repository.BookImportRepository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transactions of the bulk imports run by {@link BookImporter}. Each returns
+ * the import as committed, which is not modified afterwards.
+ */
+@Service
+@Slf4j
+@Transactional
+public class BookImportService {
+
+	private final BookImportRepository bookImportRepository;
+
+	private final BookService bookService;
+
+	public BookImportService(BookImportRepository bookImportRepository, BookService bookService) {
+		this.bookImportRepository = bookImportRepository;
+		this.bookService = bookService;
+	}
+
+	@Timed("book.import")
+	public BookImport createImport(String path, Format format, long size, long lastModified) {
+		log.info("Creating import of {}", path);
+		BookImport bookImport = new BookImport();
+		bookImport.setPath(path);
+		bookImport.setFormat(format);
+		bookImport.setState(State.RUNNING);
+		bookImport.setSize(size);
+		bookImport.setLastModified(lastModified);
+		return bookImportRepository.save(bookImport);
+	}
+
+	@Transactional(readOnly = true)
+	@Timed("book.import")
+	public Optional<BookImport> getImport(Long id) {
+		return bookImportRepository.findById(id);
+	}
+
+	@Timed("book.import")
+	public BookImport updateState(Long id, State state, String failure) {
+		log.info("Import with id {} is {}", id, state);
+		BookImport bookImport = bookImportRepository.findById(id).orElseThrow(() -> new ImportNotFoundException(id));
+		bookImport.setState(state);
+		bookImport.setFailure(failure);
+		return bookImport;
+	}
+
+	// the books and the checkpoint that follows them are committed together, or not at all
+	@Timed("book.import")
+	public BookImport saveChunk(Long id, List<Book> books, long offset, long line, long rejected) {
+		bookService.saveBooks(books);
+		return saveCheckpoint(id, offset, line, books.size(), rejected);
+	}
+
+	private BookImport saveCheckpoint(Long id, long offset, long line, long imported, long rejected) {
+		BookImport bookImport = bookImportRepository.findById(id).orElseThrow(() -> new ImportNotFoundException(id));
+		bookImport.setOffset(offset);
+		bookImport.setLine(line);
+		bookImport.setImported(bookImport.getImported() + imported);
+		bookImport.setRejected(bookImport.getRejected() + rejected);
+		return bookImport;
+	}
+
+}
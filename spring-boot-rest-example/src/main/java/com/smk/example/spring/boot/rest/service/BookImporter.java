@@ -0,0 +1,572 @@
+package com.smk.example.spring.boot.rest.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.PersistenceException;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.entity.BookImport;
+import com.smk.example.spring.boot.rest.entity.BookImport.Format;
+import com.smk.example.spring.boot.rest.entity.BookImport.State;
+import com.smk.example.spring.boot.rest.exception.ImportInProgressException;
+import com.smk.example.spring.boot.rest.exception.ImportNotFoundException;
+import com.smk.example.spring.boot.rest.exception.InvalidImportException;
+import com.smk.example.spring.boot.rest.mapper.BookMapper;
+import com.smk.example.spring.boot.rest.model.BookBatchItemResult;
+import com.smk.example.spring.boot.rest.model.BookBatchItemResult.Status;
+import com.smk.example.spring.boot.rest.model.BookImportStatus;
+import com.smk.example.spring.boot.rest.model.BookModel;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports the books of CSV and NDJSON files of {@code book.import.directory}
+ * in three stages joined by bounded queues, so that a fast stage waits for a
+ * slow one instead of buffering the file:
+ * <ol>
+ * <li>a reader maps the file a window at a time and cuts it into chunks of
+ * whole lines, without decoding them;</li>
+ * <li>{@code book.import.parallelism} parsers read, validate and map the lines
+ * of a chunk to {@link Book} entities;</li>
+ * <li>a writer saves the chunks in file order, one transaction per chunk
+ * together with the checkpoint of the import.</li>
+ * </ol>
+ * One import runs at a time. A failed or interrupted import resumes after the
+ * last committed chunk.
+ */
+@Component
+@Slf4j
+public class BookImporter {
+
+	// a line cannot be longer than the window of the file mapped at a time
+	private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+	private static final long POLL_MILLIS = 100;
+
+	// properties of BookModel that a CSV header may name, the others are set by the application
+	private static final Set<String> CSV_COLUMNS = new LinkedHashSet<String>(
+			Arrays.asList("title", "author", "publicationDate", "publisher", "isbn", "format", "pages"));
+
+	private final BookImportService bookImportService;
+
+	private final BookService bookService;
+
+	private final BookMapper bookMapper;
+
+	private final Validator validator;
+
+	private final ObjectMapper objectMapper;
+
+	private final CsvMapper csvMapper;
+
+	private final Path directory;
+
+	private final int chunkSize;
+
+	private final int parallelism;
+
+	private final int queueCapacity;
+
+	private final int rejectSamples;
+
+	private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "book-import"));
+
+	// first rejected rows of each import, by id
+	private final Map<Long, List<BookBatchItemResult>> rejects = new ConcurrentHashMap<Long, List<BookBatchItemResult>>();
+
+	private volatile Job running;
+
+	public BookImporter(BookImportService bookImportService, BookService bookService, BookMapper bookMapper,
+			Validator validator, ObjectMapper objectMapper, @Value("${book.import.directory}") String directory,
+			@Value("${book.import.chunk-size}") int chunkSize, @Value("${book.import.parallelism}") int parallelism,
+			@Value("${book.import.queue-capacity}") int queueCapacity,
+			@Value("${book.import.reject-samples}") int rejectSamples) {
+		this.bookImportService = bookImportService;
+		this.bookService = bookService;
+		this.bookMapper = bookMapper;
+		this.validator = validator;
+		this.objectMapper = objectMapper;
+		this.csvMapper = CsvMapper.builder().findAndAddModules().enable(CsvParser.Feature.EMPTY_STRING_AS_NULL).build();
+		this.directory = Paths.get(directory).toAbsolutePath().normalize();
+		this.chunkSize = chunkSize;
+		this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		this.queueCapacity = queueCapacity;
+		this.rejectSamples = rejectSamples;
+	}
+
+	public synchronized BookImportStatus startImport(String path, Format format) {
+		checkNotRunning();
+		Path file = resolve(path);
+		ObjectReader reader = reader(format, path, file);
+		BookImport bookImport;
+		try {
+			bookImport = bookImportService.createImport(directory.relativize(file).toString(), format, Files.size(file),
+					Files.getLastModifiedTime(file).toMillis());
+		} catch (IOException exception) {
+			throw new InvalidImportException(String.format("File %s cannot be read: %s", path, exception.getMessage()));
+		}
+		return run(bookImport, file, reader);
+	}
+
+	public synchronized BookImportStatus resumeImport(Long id) {
+		checkNotRunning();
+		BookImport bookImport = bookImportService.getImport(id).orElseThrow(() -> new ImportNotFoundException(id));
+		if (bookImport.getState() == State.COMPLETED)
+			throw new InvalidImportException(String.format("Import with id %d is completed", id));
+		Path file = resolve(bookImport.getPath());
+		try {
+			if (Files.size(file) != bookImport.getSize()
+					|| Files.getLastModifiedTime(file).toMillis() != bookImport.getLastModified())
+				throw new InvalidImportException(
+						String.format("File %s has changed since import %d started", bookImport.getPath(), id));
+		} catch (IOException exception) {
+			throw new InvalidImportException(
+					String.format("File %s cannot be read: %s", bookImport.getPath(), exception.getMessage()));
+		}
+		ObjectReader reader = reader(bookImport.getFormat(), bookImport.getPath(), file);
+		return run(bookImportService.updateState(id, State.RUNNING, null), file, reader);
+	}
+
+	public BookImportStatus getImportStatus(Long id) {
+		Job job = running;
+		if (job != null && job.committed.getId().equals(id))
+			return job.status();
+		BookImport bookImport = bookImportService.getImport(id).orElseThrow(() -> new ImportNotFoundException(id));
+		BookImportStatus status = status(bookImport);
+		// an import left running by an application that has stopped is resumable
+		if (bookImport.getState() == State.RUNNING) {
+			status.setState(State.FAILED);
+			status.setFailure("Interrupted");
+		}
+		return status;
+	}
+
+	@PreDestroy
+	public void close() throws InterruptedException {
+		runner.shutdownNow();
+		runner.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	private void checkNotRunning() {
+		Job job = running;
+		// a job that has recorded its end is only left to clear itself
+		if (job != null && job.committed.getState() == State.RUNNING)
+			throw new ImportInProgressException(job.committed.getId());
+	}
+
+	// only files of the import directory can be imported
+	private Path resolve(String path) {
+		Path file = directory.resolve(path).normalize();
+		if (!file.startsWith(directory))
+			throw new InvalidImportException(String.format("File %s is not in the import directory", path));
+		if (!Files.isRegularFile(file) || !Files.isReadable(file))
+			throw new InvalidImportException(String.format("File %s does not exist or cannot be read", path));
+		return file;
+	}
+
+	private BookImportStatus run(BookImport bookImport, Path file, ObjectReader reader) {
+		Job job = new Job(bookImport, file, reader);
+		running = job;
+		runner.execute(job);
+		return job.status();
+	}
+
+	// a CSV file is read by the columns of its header, which is checked before the import starts
+	private ObjectReader reader(Format format, String path, Path file) {
+		if (format == Format.NDJSON)
+			return objectMapper.readerFor(BookModel.class);
+		String[] columns;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(WINDOW_SIZE, channel.size()));
+			int end = 0;
+			while (end < window.limit() && window.get(end) != '\n')
+				end++;
+			byte[] header = new byte[end];
+			window.get(header);
+			columns = header.length == 0 ? null : csvMapper.readerFor(String[].class).readValue(header);
+		} catch (IOException exception) {
+			throw new InvalidImportException(
+					String.format("Header of %s cannot be read: %s", path, exception.getMessage()));
+		}
+		if (columns == null)
+			throw new InvalidImportException(String.format("File %s has no header", path));
+		CsvSchema.Builder schema = CsvSchema.builder();
+		for (String column : columns) {
+			column = column.trim();
+			if (!CSV_COLUMNS.contains(column))
+				throw new InvalidImportException(String.format("Column %s of %s is not one of %s", column,
+						path, CSV_COLUMNS));
+			schema.addColumn(column);
+		}
+		return csvMapper.readerFor(BookModel.class).with(schema.build());
+	}
+
+	private BookImportStatus status(BookImport bookImport) {
+		BookImportStatus status = new BookImportStatus();
+		status.setId(bookImport.getId());
+		status.setPath(bookImport.getPath());
+		status.setFormat(bookImport.getFormat());
+		status.setState(bookImport.getState());
+		status.setSize(bookImport.getSize());
+		status.setOffset(bookImport.getOffset());
+		status.setLine(bookImport.getLine());
+		status.setProgress(bookImport.getSize() == 0 ? 100
+				: Math.floor(1000.0 * bookImport.getOffset() / bookImport.getSize()) / 10);
+		status.setImported(bookImport.getImported());
+		status.setRejected(bookImport.getRejected());
+		List<BookBatchItemResult> samples = rejects.get(bookImport.getId());
+		if (samples != null)
+			synchronized (samples) {
+				status.setRejects(new ArrayList<BookBatchItemResult>(samples));
+			}
+		status.setFailure(bookImport.getFailure());
+		status.setCreatedDate(bookImport.getCreatedDate());
+		status.setUpdatedDate(bookImport.getUpdatedDate());
+		return status;
+	}
+
+	// lines of the file from firstLine, ending with endLine at endOffset
+	private static final class Chunk {
+
+		static final Chunk END = new Chunk(-1, null, 0, 0, 0);
+
+		final long sequence;
+
+		final ByteBuffer data;
+
+		final long firstLine;
+
+		final long endLine;
+
+		final long endOffset;
+
+		Chunk(long sequence, ByteBuffer data, long firstLine, long endLine, long endOffset) {
+			this.sequence = sequence;
+			this.data = data;
+			this.firstLine = firstLine;
+			this.endLine = endLine;
+			this.endOffset = endOffset;
+		}
+
+	}
+
+	private static final class ParsedChunk {
+
+		final Chunk chunk;
+
+		final List<Book> books = new ArrayList<Book>();
+
+		final List<Long> lines = new ArrayList<Long>();
+
+		final List<BookBatchItemResult> rejects = new ArrayList<BookBatchItemResult>();
+
+		ParsedChunk(Chunk chunk) {
+			this.chunk = chunk;
+		}
+
+	}
+
+	private final class Job implements Runnable {
+
+		private final Path file;
+
+		private final ObjectReader reader;
+
+		private final List<BookBatchItemResult> samples;
+
+		// the import as last committed, read by the status requests
+		private volatile BookImport committed;
+
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		// number of chunks of the file, known once the reader has reached its end
+		private volatile long chunkCount = -1;
+
+		private final long startNanos = System.nanoTime();
+
+		private final long startRows;
+
+		Job(BookImport bookImport, Path file, ObjectReader reader) {
+			this.committed = bookImport;
+			this.file = file;
+			this.reader = reader;
+			this.samples = rejects.computeIfAbsent(bookImport.getId(), id -> new ArrayList<BookBatchItemResult>());
+			this.startRows = bookImport.getImported() + bookImport.getRejected();
+		}
+
+		@Override
+		public void run() {
+			Long id = committed.getId();
+			AtomicInteger threads = new AtomicInteger();
+			ExecutorService stages = Executors.newFixedThreadPool(parallelism + 1,
+					runnable -> new Thread(runnable, "book-import-" + id + "-" + threads.incrementAndGet()));
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<Chunk>(queueCapacity);
+				BlockingQueue<ParsedChunk> parsedChunks = new ArrayBlockingQueue<ParsedChunk>(queueCapacity);
+				stages.execute(() -> stage(() -> read(channel, chunks)));
+				for (int i = 0; i < parallelism; i++)
+					stages.execute(() -> stage(() -> parse(chunks, parsedChunks)));
+				write(parsedChunks);
+				committed = bookImportService.updateState(id, State.COMPLETED, null);
+				log.info("Import with id {} completed: {} books imported, {} rejected, {} rows/s", id,
+						committed.getImported(), committed.getRejected(), rowsPerSecond());
+			} catch (Exception exception) {
+				Throwable cause = failure.get() != null ? failure.get() : exception;
+				log.error("Import with id {} failed at line {}", id, committed.getLine(), cause);
+				String message = cause instanceof InterruptedException ? "Interrupted"
+						: String.valueOf(NestedExceptionUtils.getMostSpecificCause(cause).getMessage());
+				try {
+					committed = bookImportService.updateState(id, State.FAILED,
+							message.substring(0, Math.min(message.length(), 1000)));
+				} catch (RuntimeException stateException) {
+					log.error("Unable to record the failure of import with id {}", id, stateException);
+				}
+			} finally {
+				stages.shutdownNow();
+				synchronized (BookImporter.this) {
+					if (running == this)
+						running = null;
+				}
+			}
+		}
+
+		BookImportStatus status() {
+			BookImportStatus status = BookImporter.this.status(committed);
+			if (committed.getState() == State.RUNNING)
+				status.setRowsPerSecond(rowsPerSecond());
+			return status;
+		}
+
+		private long rowsPerSecond() {
+			long rows = committed.getImported() + committed.getRejected() - startRows;
+			long nanos = System.nanoTime() - startNanos;
+			return nanos == 0 ? 0 : rows * TimeUnit.SECONDS.toNanos(1) / nanos;
+		}
+
+		// a failed stage fails the import, the writer finds the failure on its next poll
+		private void stage(StageTask task) {
+			try {
+				task.run();
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			} catch (Exception | Error exception) {
+				failure.compareAndSet(null, exception);
+			}
+		}
+
+		private void read(FileChannel channel, BlockingQueue<Chunk> chunks) throws IOException, InterruptedException {
+			long size = committed.getSize();
+			long position = committed.getOffset();
+			long line = committed.getLine();
+			long sequence = 0;
+			// the header of a CSV file has already been read
+			if (position == 0 && committed.getFormat() == Format.CSV) {
+				MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(WINDOW_SIZE, size));
+				while (position < window.limit() && window.get((int) position) != '\n')
+					position++;
+				position = Math.min(position + 1, size);
+				line = 1;
+			}
+			while (position < size) {
+				MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(WINDOW_SIZE, size - position));
+				int limit = window.limit();
+				int chunkStart = 0;
+				int end = 0;
+				int lines = 0;
+				for (int i = 0; i < limit; i++) {
+					if (window.get(i) != '\n')
+						continue;
+					end = i + 1;
+					if (++lines == chunkSize) {
+						chunks.put(new Chunk(sequence++, slice(window, chunkStart, end), line + 1, line + lines,
+								position + end));
+						line += lines;
+						chunkStart = end;
+						lines = 0;
+					}
+				}
+				// the last line of the file may have no line feed
+				if (position + limit == size && end < limit) {
+					end = limit;
+					lines++;
+				}
+				if (end == 0)
+					throw new InvalidImportException(
+							String.format("Line %d is longer than %d bytes", line + 1, WINDOW_SIZE));
+				if (end > chunkStart) {
+					chunks.put(new Chunk(sequence++, slice(window, chunkStart, end), line + 1, line + lines,
+							position + end));
+					line += lines;
+				}
+				// a line cut by the end of the window starts the next one
+				position += end;
+			}
+			chunkCount = sequence;
+			for (int i = 0; i < parallelism; i++)
+				chunks.put(Chunk.END);
+		}
+
+		private ByteBuffer slice(MappedByteBuffer window, int start, int end) {
+			ByteBuffer slice = window.duplicate();
+			slice.position(start).limit(end);
+			return slice.slice();
+		}
+
+		private void parse(BlockingQueue<Chunk> chunks, BlockingQueue<ParsedChunk> parsedChunks)
+				throws IOException, InterruptedException {
+			byte[] buffer = new byte[1024];
+			while (true) {
+				Chunk chunk = chunks.take();
+				if (chunk == Chunk.END)
+					return;
+				ParsedChunk parsedChunk = new ParsedChunk(chunk);
+				ByteBuffer data = chunk.data;
+				int limit = data.limit();
+				long line = chunk.firstLine;
+				for (int start = 0; start < limit; line++) {
+					int end = start;
+					while (end < limit && data.get(end) != '\n')
+						end++;
+					int length = end - start;
+					if (length > 0 && data.get(end - 1) == '\r')
+						length--;
+					if (length > buffer.length)
+						buffer = new byte[Math.max(length, 2 * buffer.length)];
+					for (int i = 0; i < length; i++)
+						buffer[i] = data.get(start + i);
+					// blank lines are skipped
+					if (length > 0)
+						parse(buffer, length, line, parsedChunk);
+					start = end + 1;
+				}
+				parsedChunks.put(parsedChunk);
+			}
+		}
+
+		private void parse(byte[] buffer, int length, long line, ParsedChunk parsedChunk) throws IOException {
+			BookModel bookModel;
+			try {
+				bookModel = reader.readValue(buffer, 0, length);
+			} catch (JsonProcessingException exception) {
+				parsedChunk.rejects.add(new BookBatchItemResult((int) line, Status.INVALID, null,
+						Arrays.asList("Malformed record: " + exception.getOriginalMessage())));
+				return;
+			}
+			if (bookModel == null) {
+				parsedChunk.rejects.add(new BookBatchItemResult((int) line, Status.INVALID, null,
+						Arrays.asList("Malformed record: not a book")));
+				return;
+			}
+			Set<ConstraintViolation<BookModel>> violations = validator.validate(bookModel);
+			if (!violations.isEmpty()) {
+				parsedChunk.rejects.add(new BookBatchItemResult((int) line, Status.INVALID, null, violations.stream()
+						.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+						.collect(Collectors.toList())));
+				return;
+			}
+			parsedChunk.books.add(bookMapper.toEntity(bookModel, new Book()));
+			parsedChunk.lines.add(line);
+		}
+
+		// chunks are parsed out of order and saved in order, so that the checkpoint covers every line before it
+		private void write(BlockingQueue<ParsedChunk> parsedChunks) throws Exception {
+			Map<Long, ParsedChunk> pending = new HashMap<Long, ParsedChunk>();
+			long next = 0;
+			while (chunkCount < 0 || next < chunkCount) {
+				if (failure.get() != null)
+					throw new IllegalStateException("Import stage failed", failure.get());
+				ParsedChunk parsedChunk = parsedChunks.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (parsedChunk != null)
+					pending.put(parsedChunk.chunk.sequence, parsedChunk);
+				for (ParsedChunk ready; (ready = pending.remove(next)) != null; next++)
+					save(ready);
+			}
+		}
+
+		private void save(ParsedChunk parsedChunk) {
+			Long id = committed.getId();
+			Chunk chunk = parsedChunk.chunk;
+			List<BookBatchItemResult> chunkRejects = parsedChunk.rejects;
+			try {
+				committed = bookImportService.saveChunk(id, parsedChunk.books, chunk.endOffset, chunk.endLine,
+						chunkRejects.size());
+			} catch (DataAccessException | PersistenceException exception) {
+				// a chunk that conflicts with the catalog on an ISBN is saved again without the books whose ISBN is
+				// taken, by the catalog or by an earlier book of the chunk, still in one transaction with the
+				// checkpoint so that no book of the chunk is committed without it. Another failure, or an ISBN taken
+				// in between by another writer, fails the import, which resumes from the previous checkpoint
+				chunkRejects = new ArrayList<BookBatchItemResult>(chunkRejects);
+				Set<String> takenIsbns = new HashSet<String>(bookService.getTakenNormalizedIsbns(parsedChunk.books.stream()
+						.map(Book::getNormalizedIsbn).filter(Objects::nonNull).collect(Collectors.toList())));
+				List<Book> books = new ArrayList<Book>(parsedChunk.books.size());
+				for (int i = 0; i < parsedChunk.books.size(); i++) {
+					Book book = parsedChunk.books.get(i);
+					// the failed transaction may have assigned an id and a version to the book
+					book.setId(null);
+					book.setVersion(null);
+					if (book.getNormalizedIsbn() == null || takenIsbns.add(book.getNormalizedIsbn()))
+						books.add(book);
+					else
+						chunkRejects.add(new BookBatchItemResult(parsedChunk.lines.get(i).intValue(), Status.FAILED, null,
+								Arrays.asList("ISBN " + book.getIsbn() + " is already in the catalog")));
+				}
+				committed = bookImportService.saveChunk(id, books, chunk.endOffset, chunk.endLine, chunkRejects.size());
+				chunkRejects.sort(Comparator.comparingInt(BookBatchItemResult::getIndex));
+			}
+			synchronized (samples) {
+				for (int i = 0; i < chunkRejects.size() && samples.size() < rejectSamples; i++)
+					samples.add(chunkRejects.get(i));
+			}
+		}
+
+	}
+
+	@FunctionalInterface
+	private interface StageTask {
+
+		void run() throws Exception;
+
+	}
+
+}
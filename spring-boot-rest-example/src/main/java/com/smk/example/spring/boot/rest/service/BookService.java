@@ -1,67 +1,457 @@
 package com.smk.example.spring.boot.rest.service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.search.engine.search.predicate.dsl.PredicateFinalStep;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.common.EntityReference;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.mapper.BookMapper;
+import com.smk.example.spring.boot.rest.model.BookChange;
+import com.smk.example.spring.boot.rest.model.BookCursor;
+import com.smk.example.spring.boot.rest.model.BookField;
+import com.smk.example.spring.boot.rest.model.BookFilter;
+import com.smk.example.spring.boot.rest.model.BookModel;
+import com.smk.example.spring.boot.rest.model.BookView;
 import com.smk.example.spring.boot.rest.repository.BookRepository;
+import com.smk.example.spring.boot.rest.repository.BookSpecifications;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 
+// read methods run in read-only transactions: Hibernate then uses flush mode MANUAL and keeps no snapshots
+// for dirty checking, and the routing data source sends them to the replica when one is configured
 @Service
 @Slf4j
 @Transactional
 public class BookService {
 
+	public enum FlushStrategy {
+		// writes are flushed once when the transaction commits, or every flush-size books in bulk, so statements can be batched
+		COMMIT,
+		// every write is flushed as soon as it is made
+		IMMEDIATE
+	}
+
+	public static final String BOOKS_CACHE = "books";
+
+	public static final String BOOKS_BY_TITLE_CACHE = "booksByTitle";
+
+	public static final String BOOKS_BY_TITLE_AND_AUTHOR_CACHE = "booksByTitleAndAuthor";
+
+	// properties of the full-text index that a bulk update may change
+	private static final Set<String> INDEXED_PROPERTIES = new HashSet<String>(Arrays.asList("title", "author", "publisher"));
+
 	private final BookRepository bookRepository;
 
-	public BookService(BookRepository bookRepository) {
+	private final BookMapper bookMapper;
+
+	private final FlushStrategy flushStrategy;
+
+	private final int flushSize;
+
+	private final BookChangeLog changeLog;
+
+	// null when the in-memory ISBN index is disabled, ISBN lookups then only use the database index
+	private final IsbnIndex isbnIndex;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	public BookService(BookRepository bookRepository, BookMapper bookMapper, BookChangeLog changeLog,
+			@Value("${book.write.flush-strategy}") FlushStrategy flushStrategy, @Value("${book.write.flush-size}") int flushSize,
+			@Value("${book.isbn-index.enabled}") boolean isbnIndexEnabled) {
 		this.bookRepository = bookRepository;
+		this.bookMapper = bookMapper;
+		this.changeLog = changeLog;
+		this.flushStrategy = flushStrategy;
+		this.flushSize = flushSize;
+		this.isbnIndex = isbnIndexEnabled ? new IsbnIndex() : null;
 	}
 
+	// any write may change the result of a title lookup, including a cached miss, so those caches are cleared
+	@Caching(evict = { @CacheEvict(cacheNames = BOOKS_CACHE, key = "#result.id"),
+			@CacheEvict(cacheNames = { BOOKS_BY_TITLE_CACHE, BOOKS_BY_TITLE_AND_AUTHOR_CACHE }, allEntries = true) })
+	@Timed("book.service")
 	public Book saveBook(Book book) {
 		log.info("Saving book {}", book);
-		return bookRepository.saveAndFlush(book);
+		BookChange.Type type = book.getId() == null ? BookChange.Type.CREATED : BookChange.Type.UPDATED;
+		Book savedBook;
+		if (flushStrategy == FlushStrategy.IMMEDIATE)
+			savedBook = bookRepository.saveAndFlush(book);
+		else
+			// the transaction commits before this method returns to the controller, so a version conflict found
+			// by the flush at commit is still raised here as ObjectOptimisticLockingFailureException
+			savedBook = bookRepository.save(book);
+		catalogChanged(type, savedBook.getId(), savedBook);
+		return savedBook;
+	}
+
+	// new ids may have been cached as missing, so every cache is cleared
+	@CacheEvict(cacheNames = { BOOKS_CACHE, BOOKS_BY_TITLE_CACHE, BOOKS_BY_TITLE_AND_AUTHOR_CACHE }, allEntries = true)
+	@Timed("book.service")
+	public List<Book> saveBooks(List<Book> books) {
+		log.info("Saving {} books", books.size());
+		List<Book> savedBooks = new ArrayList<Book>(books.size());
+		for (Book book : books) {
+			if (flushStrategy == FlushStrategy.IMMEDIATE) {
+				savedBooks.add(bookRepository.saveAndFlush(book));
+				catalogChanged(BookChange.Type.CREATED, book.getId(), book);
+				continue;
+			}
+			savedBooks.add(bookRepository.save(book));
+			catalogChanged(BookChange.Type.CREATED, book.getId(), book);
+			// inserts are sent in JDBC batches on each flush; clearing keeps the persistence context small
+			if (savedBooks.size() % flushSize == 0) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		return savedBooks;
 	}
 
-	public Optional<Book> getBookById(Long id) {
+	// an empty result is cached as well so that repeated lookups of a missing book do not reach the database
+	@Cacheable(cacheNames = BOOKS_CACHE, key = "#id")
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public Optional<BookModel> getBookById(Long id) {
 		log.info("Getting book with id {}", id);
+		Optional<BookModel> optionalBook = bookRepository.findById(id).map(bookMapper::toModel);
+		return optionalBook;
+	}
+	
+	// not cached nor read-only as the returned entity is meant to be modified and saved, so it is read from the primary
+	@Timed("book.service")
+	public Optional<Book> getBookEntityById(Long id) {
+		log.info("Getting book entity with id {}", id);
 		Optional<Book> optionalBook = bookRepository.findById(id);
 		return optionalBook;
 	}
 	
-	public Optional<Book> getBookByTitle(String title) {
+	// read from the primary as it also guards conditional writes
+	@Timed("book.service")
+	public Optional<Long> getBookVersion(Long id) {
+		log.info("Getting version of book with id {}", id);
+		return bookRepository.findVersionById(id);
+	}
+	
+	@Cacheable(cacheNames = BOOKS_BY_TITLE_CACHE, key = "#title")
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public Optional<BookModel> getBookByTitle(String title) {
 		log.info("Getting book with title {}", title);
-		Optional<Book> optionalBook = bookRepository.findByTitle(title);
+		Optional<BookModel> optionalBook = bookRepository.findModelByTitle(title);
 		return optionalBook;
 	}
 	
-	public Optional<Book> getBookByTitleAndAuthor(String title, String author) {
-		log.info("Getting book with title and author {}", title, author);
-		Optional<Book> optionalBook = bookRepository.findByTitleAndAuthor(title, author);
+	@Cacheable(cacheNames = BOOKS_BY_TITLE_AND_AUTHOR_CACHE, key = "{ #title, #author }")
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public Optional<BookModel> getBookByTitleAndAuthor(String title, String author) {
+		log.info("Getting book with title {} and author {}", title, author);
+		Optional<BookModel> optionalBook = bookRepository.findModelByTitleAndAuthor(title, author);
+		return optionalBook;
+	}
+	
+	// resolved in memory without a transaction, the book is then looked up by id, usually from the cache
+	@Transactional(propagation = Propagation.SUPPORTS)
+	@Timed("book.service")
+	public Optional<Long> getIndexedBookId(String normalizedIsbn) {
+		if (isbnIndex == null)
+			return Optional.empty();
+		return isbnIndex.get(normalizedIsbn);
+	}
+	
+	// also corrects the entry of the ISBN index, which is only updated after commit and so may lag behind
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public Optional<BookModel> getBookByIsbn(String normalizedIsbn) {
+		log.info("Getting book with ISBN {}", normalizedIsbn);
+		Optional<BookModel> optionalBook = bookRepository.findModelByNormalizedIsbn(normalizedIsbn);
+		if (isbnIndex != null) {
+			if (optionalBook.isPresent())
+				isbnIndex.put(normalizedIsbn, optionalBook.get().getId());
+			else
+				isbnIndex.get(normalizedIsbn).ifPresent(id -> isbnIndex.remove(normalizedIsbn, id));
+		}
 		return optionalBook;
 	}
 	
+	// the ones among the given ISBNs that a book of the catalog already has
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public Set<String> getTakenNormalizedIsbns(List<String> normalizedIsbns) {
+		Set<String> takenIsbns = new HashSet<String>();
+		// IN lists are kept to the length that databases accept
+		for (int from = 0; from < normalizedIsbns.size(); from += BookFilter.MAX_IDS) {
+			int to = Math.min(from + BookFilter.MAX_IDS, normalizedIsbns.size());
+			takenIsbns.addAll(bookRepository.findNormalizedIsbns(normalizedIsbns.subList(from, to)));
+		}
+		return takenIsbns;
+	}
+	
+	// the catalog is streamed once the application is ready; lookups fall back to the database until then
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public void rebuildIsbnIndex() {
+		if (isbnIndex == null)
+			return;
+		log.info("Building ISBN index");
+		try (Stream<Object[]> isbns = bookRepository.streamNormalizedIsbns()) {
+			isbns.forEach(isbn -> isbnIndex.put((String) isbn[0], (Long) isbn[1]));
+		}
+		log.info("Built ISBN index of {} books", isbnIndex.size());
+	}
+	
+	@Transactional(readOnly = true)
+	@Timed("book.service")
 	public List<Book> getAllBooks() {
 		log.info("Geting all books");
 		List<Book> books = bookRepository.findAll();
 		return books;
 	}
 	
-	public Page<Book> getAllBooks(Pageable pageable) {
-		log.info("Geting all books by page");
-		Page<Book> books = bookRepository.findAll(pageable);
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public Page<Book> getAllBooks(BookFilter filter, Pageable pageable) {
+		log.info("Geting all books matching {} by page", filter);
+		// the criteria and the sort compile into one query, and one count when the page does not tell the total
+		Page<Book> books = bookRepository.findAll(BookSpecifications.matching(filter), pageable);
 		return books;
 	}
 	
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public List<BookView> getAllBookViews(Set<BookField> fields) {
+		log.info("Getting fields {} of all books ordered by title", fields);
+		return bookRepository.findViews(fields, Sort.by("title", "id"));
+	}
+	
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public Page<BookView> getAllBookViews(Set<BookField> fields, BookFilter filter, Pageable pageable) {
+		log.info("Getting fields {} of all books matching {} by page", fields, filter);
+		return bookRepository.findViews(fields, BookSpecifications.matching(filter), pageable);
+	}
+	
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public Slice<Book> getBooksAfter(BookCursor cursor, int size) {
+		log.info("Getting {} books after cursor {}", size, cursor);
+		Pageable limit = PageRequest.of(0, size);
+		if (cursor.getKey() == BookCursor.Key.ID)
+			return bookRepository.findSliceOrderByIdAfter(cursor.isFirst() ? 0L : cursor.getId(), limit);
+		if (cursor.isFirst())
+			return bookRepository.findSliceOrderByTitle(limit);
+		return bookRepository.findSliceOrderByTitleAfter(cursor.getTitle(), cursor.getId(), limit);
+	}
+	
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public Page<Book> searchBooks(String text, Pageable pageable) {
+		log.info("Searching books matching {}", text);
+		SearchResult<Book> result = Search.session(entityManager).search(Book.class)
+				.where(f -> matching(f, text))
+				.fetch((int) pageable.getOffset(), pageable.getPageSize());
+		return new PageImpl<Book>(result.hits(), pageable, result.total().hitCount());
+	}
+	
+	// the index only gives the ids of the hits, the requested fields are then selected by id
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public Page<BookView> searchBookViews(String text, Set<BookField> fields, Pageable pageable) {
+		log.info("Searching fields {} of books matching {}", fields, text);
+		SearchResult<EntityReference> result = Search.session(entityManager).search(Book.class).selectEntityReference()
+				.where(f -> matching(f, text))
+				.fetch((int) pageable.getOffset(), pageable.getPageSize());
+		List<Long> ids = result.hits().stream().map(hit -> (Long) hit.id()).collect(Collectors.toList());
+		return new PageImpl<BookView>(bookRepository.findViewsByIds(fields, ids), pageable, result.total().hitCount());
+	}
+	
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public long countBooks() {
+		log.info("Counting books");
+		return bookRepository.count();
+	}
+	
+	@Transactional(readOnly = true)
+	@Timed("book.service")
+	public void streamAllBooks(Consumer<Book> action) {
+		log.info("Streaming all books ordered by title");
+		try (Stream<Book> books = bookRepository.streamAllOrderByTitle()) {
+			books.forEach(book -> {
+				action.accept(book);
+				// detach each row once consumed so the persistence context does not grow with the catalog
+				entityManager.detach(book);
+			});
+		}
+	}
+	
+	@Caching(evict = { @CacheEvict(cacheNames = BOOKS_CACHE, key = "#id"),
+			@CacheEvict(cacheNames = { BOOKS_BY_TITLE_CACHE, BOOKS_BY_TITLE_AND_AUTHOR_CACHE }, allEntries = true) })
+	@Timed("book.service")
 	public void deleteBook(Long id) {
 		log.info("Deleting book with id {}", id);
 		bookRepository.deleteById(id);
+		catalogChanged(BookChange.Type.DELETED, id, null);
+	}
+	
+	// the books are deleted by set-based statements of up to MAX_IDS ids each, which Hibernate Search does not see
+	@CacheEvict(cacheNames = { BOOKS_CACHE, BOOKS_BY_TITLE_CACHE, BOOKS_BY_TITLE_AND_AUTHOR_CACHE }, allEntries = true)
+	@Timed("book.service")
+	public long deleteBooks(BookFilter filter) {
+		log.info("Deleting books matching {}", filter);
+		// the ids are selected first, and locked, so that exactly the deleted books are logged and purged from the index;
+		// the statements repeat the other criteria besides their chunk of ids
+		List<Long> ids = findIdsForUpdate(filter);
+		BookFilter criteria = filter.withIds(null);
+		SearchIndexingPlan indexingPlan = Search.session(entityManager).indexingPlan();
+		long deleted = 0;
+		for (int from = 0; from < ids.size(); from += BookFilter.MAX_IDS) {
+			deleted += bookRepository.deleteMatching(criteria, ids.subList(from, Math.min(from + BookFilter.MAX_IDS, ids.size())));
+		}
+		for (Long id : ids) {
+			indexingPlan.purge(Book.class, id, null);
+			catalogChanged(BookChange.Type.DELETED, id, null);
+		}
+		return deleted;
+	}
+	
+	// values are keyed by Book property; the updated books are read back for the change log, and for the index when
+	// an indexed property changed, a chunk at a time so that the persistence context stays small
+	@CacheEvict(cacheNames = { BOOKS_CACHE, BOOKS_BY_TITLE_CACHE, BOOKS_BY_TITLE_AND_AUTHOR_CACHE }, allEntries = true)
+	@Timed("book.service")
+	public long mergeBooks(BookFilter filter, Map<String, Object> values) {
+		log.info("Setting {} of books matching {}", values, filter);
+		List<Long> ids = findIdsForUpdate(filter);
+		BookFilter criteria = filter.withIds(null);
+		LocalDateTime updatedDate = LocalDateTime.now();
+		boolean reindex = values.keySet().stream().anyMatch(INDEXED_PROPERTIES::contains);
+		SearchIndexingPlan indexingPlan = Search.session(entityManager).indexingPlan();
+		long updated = 0;
+		for (int from = 0; from < ids.size(); from += BookFilter.MAX_IDS) {
+			List<Long> chunk = ids.subList(from, Math.min(from + BookFilter.MAX_IDS, ids.size()));
+			updated += bookRepository.updateMatching(criteria, chunk, values, updatedDate);
+			for (Book book : bookRepository.findAllById(chunk)) {
+				if (reindex)
+					indexingPlan.addOrUpdate(book);
+				catalogChanged(BookChange.Type.UPDATED, book.getId(), book);
+			}
+			// documents are built before the books are detached, and written to the index at commit
+			indexingPlan.process();
+			entityManager.clear();
+		}
+		return updated;
+	}
+	
+	// ids given in a request body may be more than an IN list takes, they are then matched a chunk at a time
+	private List<Long> findIdsForUpdate(BookFilter filter) {
+		if (filter.getIds() == null || filter.getIds().size() <= BookFilter.MAX_IDS)
+			return bookRepository.findIdsForUpdate(filter);
+		List<Long> requestedIds = filter.getIds().stream().distinct().sorted().collect(Collectors.toList());
+		List<Long> ids = new ArrayList<Long>(requestedIds.size());
+		for (int from = 0; from < requestedIds.size(); from += BookFilter.MAX_IDS) {
+			List<Long> chunk = requestedIds.subList(from, Math.min(from + BookFilter.MAX_IDS, requestedIds.size()));
+			ids.addAll(bookRepository.findIdsForUpdate(filter.withIds(chunk)));
+		}
+		return ids;
+	}
+	
+	// the change log is held in memory, so these methods need neither a transaction nor a connection
+	@Transactional(propagation = Propagation.SUPPORTS)
+	@Timed("book.service")
+	public List<BookChange> getChangesSince(long since, int limit) {
+		log.info("Getting {} changes since {}", limit, since);
+		return changeLog.since(since, limit);
+	}
+	
+	@Transactional(propagation = Propagation.SUPPORTS)
+	@Timed("book.service")
+	public SseEmitter subscribeToChanges(long since) {
+		log.info("Subscribing to changes since {}", since);
+		return changeLog.subscribe(since);
+	}
+	
+	@Transactional(propagation = Propagation.SUPPORTS)
+	@Timed("book.service")
+	public long getLatestChangeSequence() {
+		return changeLog.getLatestSequence();
+	}
+	
+	// the latest change sequence validates list responses without querying the catalog
+	@Transactional(propagation = Propagation.SUPPORTS)
+	@Timed("book.service")
+	public String getCatalogVersion() {
+		return String.valueOf(changeLog.getLatestSequence());
+	}
+	
+	// whole words, word prefixes and words with one typo all match, in that order of relevance; an ISBN matches exactly
+	private PredicateFinalStep matching(SearchPredicateFactory f, String text) {
+		return f.bool()
+				.should(f.match().fields("title", "author", "publisher").matching(text).boost(4))
+				.should(f.match().fields("title_prefix", "author_prefix", "publisher_prefix").matching(text).boost(2))
+				.should(f.match().fields("title", "author", "publisher").matching(text).fuzzy(1, 1))
+				.should(f.match().field("isbn").matching(text).boost(8));
+	}
+	
+	private void catalogChanged(BookChange.Type type, Long id, Book book) {
+		// recorded once committed so that a reader never sees a change, or a new version, with data from before the write
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			changeLog.append(type, id, book == null ? null : bookMapper.toModel(book));
+			indexIsbn(id, book);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				// the entity is mapped after the flush so that the change carries the committed version
+				changeLog.append(type, id, book == null ? null : bookMapper.toModel(book));
+				indexIsbn(id, book);
+			}
+		});
+	}
+	
+	// the previous ISBN of an updated book, or that of a deleted book, is left in the index until a lookup finds it stale
+	private void indexIsbn(Long id, Book book) {
+		if (isbnIndex != null && book != null && book.getNormalizedIsbn() != null)
+			isbnIndex.put(book.getNormalizedIsbn(), id);
 	}
 
 }
@@ -0,0 +1,137 @@
+package com.smk.example.spring.boot.rest.service;
+
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory index from normalized ISBN-13 to book id.
+ * <p>
+ * An ISBN-13 fits in a long, so entries are stored as pairs of longs in a
+ * single open addressing table with linear probing, about 16 to 32 bytes per
+ * book instead of the objects of a {@code HashMap<String, Long>}. Lookups are
+ * optimistic reads that only take the lock when they overlap a write.
+ * <p>
+ * Entries may be stale: the index is updated after the writes have committed,
+ * so callers check the book found against the ISBN they looked up.
+ */
+class IsbnIndex {
+
+	// 0 is never a valid ISBN-13, it marks an empty slot
+	private static final long EMPTY = 0L;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final StampedLock lock = new StampedLock();
+
+	// key at 2 * slot, id at 2 * slot + 1, so readers see keys and ids of the same table
+	private long[] table = new long[2 * INITIAL_CAPACITY];
+
+	private int size;
+
+	public Optional<Long> get(String normalizedIsbn) {
+		long key = Long.parseLong(normalizedIsbn);
+		long stamp = lock.tryOptimisticRead();
+		long id = find(table, key);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				id = find(table, key);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return id == EMPTY ? Optional.empty() : Optional.of(id);
+	}
+
+	public void put(String normalizedIsbn, long id) {
+		long key = Long.parseLong(normalizedIsbn);
+		long stamp = lock.writeLock();
+		try {
+			// resized at three quarters full, so probes stay short and always reach an empty slot
+			if (4 * (size + 1) > 3 * (table.length / 2))
+				resize();
+			int slot = slotOf(table, key);
+			if (table[2 * slot] == EMPTY)
+				size++;
+			table[2 * slot] = key;
+			table[2 * slot + 1] = id;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	// only removes the entry if it still maps to the given id, a later write may have reassigned the ISBN
+	public void remove(String normalizedIsbn, long id) {
+		long key = Long.parseLong(normalizedIsbn);
+		long stamp = lock.writeLock();
+		try {
+			int slot = slotOf(table, key);
+			if (table[2 * slot] == EMPTY || table[2 * slot + 1] != id)
+				return;
+			// backward shift deletion: entries after the hole move back unless that would put them before their home slot
+			int mask = table.length / 2 - 1;
+			int hole = slot;
+			for (int next = (hole + 1) & mask; table[2 * next] != EMPTY; next = (next + 1) & mask) {
+				int home = hash(table[2 * next]) & mask;
+				if (((next - home) & mask) >= ((next - hole) & mask)) {
+					table[2 * hole] = table[2 * next];
+					table[2 * hole + 1] = table[2 * next + 1];
+					hole = next;
+				}
+			}
+			table[2 * hole] = EMPTY;
+			table[2 * hole + 1] = EMPTY;
+			size--;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public int size() {
+		long stamp = lock.readLock();
+		try {
+			return size;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private void resize() {
+		long[] previous = table;
+		table = new long[2 * previous.length];
+		for (int i = 0; i < previous.length; i += 2) {
+			if (previous[i] != EMPTY) {
+				int slot = slotOf(table, previous[i]);
+				table[2 * slot] = previous[i];
+				table[2 * slot + 1] = previous[i + 1];
+			}
+		}
+	}
+
+	// may run concurrently with a write, which the caller detects; the table is never full so the probe ends
+	private static long find(long[] table, long key) {
+		int mask = table.length / 2 - 1;
+		for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+			long candidate = table[2 * slot];
+			if (candidate == key)
+				return table[2 * slot + 1];
+			if (candidate == EMPTY)
+				return EMPTY;
+		}
+	}
+
+	private static int slotOf(long[] table, long key) {
+		int mask = table.length / 2 - 1;
+		int slot = hash(key) & mask;
+		while (table[2 * slot] != EMPTY && table[2 * slot] != key)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	// ISBNs of one publisher are consecutive, so the bits are mixed before masking
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+}
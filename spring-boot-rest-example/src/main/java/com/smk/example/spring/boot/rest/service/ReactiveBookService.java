@@ -0,0 +1,84 @@
+package com.smk.example.spring.boot.rest.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.smk.example.spring.boot.rest.entity.BookRecord;
+import com.smk.example.spring.boot.rest.mapper.BookMapper;
+import com.smk.example.spring.boot.rest.model.BookModel;
+import com.smk.example.spring.boot.rest.repository.ReactiveBookRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// reactive counterpart of BookService; writes run in R2DBC transactions through the transactional operator
+@Service
+@Slf4j
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveBookService {
+
+	private final ReactiveBookRepository bookRepository;
+
+	private final BookMapper bookMapper;
+
+	private final TransactionalOperator transactionalOperator;
+
+	public ReactiveBookService(ReactiveBookRepository bookRepository, BookMapper bookMapper,
+			TransactionalOperator transactionalOperator) {
+		this.bookRepository = bookRepository;
+		this.bookMapper = bookMapper;
+		this.transactionalOperator = transactionalOperator;
+	}
+
+	public Mono<BookModel> saveBook(BookModel bookModel, BookRecord bookRecord) {
+		log.info("Saving book {}", bookModel);
+		return bookRepository.save(bookMapper.toRecord(bookModel, bookRecord)).map(bookMapper::toModel)
+				.as(transactionalOperator::transactional);
+	}
+
+	public Mono<BookModel> getBookById(Long id) {
+		log.info("Getting book with id {}", id);
+		return bookRepository.findById(id).map(bookMapper::toModel);
+	}
+
+	public Mono<BookRecord> getBookRecordById(Long id) {
+		log.info("Getting book record with id {}", id);
+		return bookRepository.findById(id);
+	}
+
+	public Mono<BookModel> getBookByTitle(String title) {
+		log.info("Getting book with title {}", title);
+		return bookRepository.findByTitle(title).map(bookMapper::toModel);
+	}
+
+	public Mono<BookModel> getBookByTitleAndAuthor(String title, String author) {
+		log.info("Getting book with title {} and author {}", title, author);
+		return bookRepository.findByTitleAndAuthor(title, author).map(bookMapper::toModel);
+	}
+
+	public Flux<BookModel> getAllBooks() {
+		log.info("Streaming all books ordered by title");
+		return bookRepository.findAllByOrderByTitleAsc().map(bookMapper::toModel);
+	}
+
+	public Mono<Page<BookModel>> getAllBooks(Pageable pageable) {
+		log.info("Geting all books by page");
+		return bookRepository.findAllBy(pageable).map(bookMapper::toModel).collectList()
+				.zipWith(bookRepository.count())
+				.map(books -> new PageImpl<BookModel>(books.getT1(), pageable, books.getT2()));
+	}
+
+	public Mono<Boolean> deleteBook(Long id) {
+		log.info("Deleting book with id {}", id);
+		return bookRepository.existsById(id)
+				.flatMap(exists -> exists ? bookRepository.deleteById(id).thenReturn(true) : Mono.just(false))
+				.as(transactionalOperator::transactional);
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.smk.example.spring.boot.rest.validation;
+
+import static java.lang.annotation.ElementType.ANNOTATION_TYPE;
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.ElementType.TYPE_USE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+
+/**
+ * The annotated value must be an ISBN-10 or ISBN-13 with a matching check
+ * digit, see {@link Isbns#isValid(CharSequence)}. A null value is valid.
+ */
+@Documented
+@Constraint(validatedBy = IsbnValidator.class)
+@Target({ FIELD, METHOD, PARAMETER, ANNOTATION_TYPE, TYPE_USE })
+@Retention(RUNTIME)
+public @interface Isbn {
+
+	String message() default "must be a valid ISBN-10 or ISBN-13";
+
+	Class<?>[] groups() default {};
+
+	Class<? extends Payload>[] payload() default {};
+
+}
@@ -0,0 +1,13 @@
+package com.smk.example.spring.boot.rest.validation;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+public class IsbnValidator implements ConstraintValidator<Isbn, CharSequence> {
+
+	@Override
+	public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+		return value == null || Isbns.isValid(value);
+	}
+
+}
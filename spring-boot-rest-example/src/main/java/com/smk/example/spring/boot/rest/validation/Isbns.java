@@ -0,0 +1,134 @@
+package com.smk.example.spring.boot.rest.validation;
+
+/**
+ * Validation of ISBNs, behind the {@link Isbn} constraint, and their
+ * normalization to the 13 digits of an ISBN-13.
+ */
+public final class Isbns {
+
+	private static final int MAX_GROUPS = 5;
+
+	private Isbns() {
+	}
+
+	/**
+	 * Checks an ISBN in a single pass over its characters, without allocating.
+	 * <p>
+	 * Accepted are an optional {@code ISBN}, {@code ISBN-10} or {@code ISBN-13}
+	 * prefix followed by a space, then either an ISBN-10 as 10 characters or as
+	 * 4 groups split by hyphens or spaces, or an ISBN-13 starting with 978 or 979
+	 * as 13 digits or as 5 groups. In groups, the registration group has 1 to 5
+	 * digits and the check digit stands alone. The check digit must match, an
+	 * {@code X} standing for 10 in an ISBN-10.
+	 */
+	public static boolean isValid(CharSequence isbn) {
+		int start = prefixLength(isbn);
+		if (start < 0)
+			return false;
+		int digits = 0;
+		int groups = 1;
+		int groupLength = 0;
+		int firstGroupLength = 0;
+		int secondGroupLength = 0;
+		int sum10 = 0;
+		int sum13 = 0;
+		int prefix = 0;
+		for (int i = start; i < isbn.length(); i++) {
+			char c = isbn.charAt(i);
+			if (c == '-' || c == ' ') {
+				// separators only stand between groups of digits
+				if (groupLength == 0 || i == isbn.length() - 1 || ++groups > MAX_GROUPS)
+					return false;
+				if (groups == 2)
+					firstGroupLength = groupLength;
+				else if (groups == 3)
+					secondGroupLength = groupLength;
+				groupLength = 0;
+				continue;
+			}
+			int value;
+			if (c >= '0' && c <= '9')
+				value = c - '0';
+			else if (c == 'X' && digits == 9 && i == isbn.length() - 1)
+				value = 10;
+			else
+				return false;
+			if (++digits > 13)
+				return false;
+			if (digits <= 3)
+				prefix = prefix * 10 + value;
+			sum10 += (11 - digits) * value;
+			sum13 += (digits % 2 == 1 ? 1 : 3) * value;
+			groupLength++;
+		}
+		if (digits == 10 && groups == 1)
+			return sum10 % 11 == 0;
+		if (digits == 10 && groups == 4)
+			return firstGroupLength <= 5 && groupLength == 1 && sum10 % 11 == 0;
+		if (digits != 13 || (prefix != 978 && prefix != 979))
+			return false;
+		if (groups == 1)
+			return sum13 % 10 == 0;
+		return groups == 5 && firstGroupLength == 3 && secondGroupLength <= 5 && groupLength == 1 && sum13 % 10 == 0;
+	}
+
+	/**
+	 * Strips the optional {@code ISBN} prefix, hyphens and spaces, and converts
+	 * an ISBN-10 to its ISBN-13 form.
+	 *
+	 * @return the 13 digits, or null if the value is not shaped as an ISBN
+	 */
+	public static String normalize(String isbn) {
+		if (isbn == null)
+			return null;
+		int start = 0;
+		if (isbn.startsWith("ISBN")) {
+			start = isbn.indexOf(' ') + 1;
+			if (start == 0)
+				return null;
+		}
+		StringBuilder digits = new StringBuilder(13);
+		for (int i = start; i < isbn.length(); i++) {
+			char c = isbn.charAt(i);
+			if (c != '-' && c != ' ')
+				digits.append(c);
+		}
+		if (digits.length() == 13 && isDigits(digits, 13))
+			return digits.toString();
+		if (digits.length() == 10 && isDigits(digits, 9) && (Character.isDigit(digits.charAt(9)) || digits.charAt(9) == 'X')) {
+			// the ISBN-10 check digit does not carry over, the ISBN-13 one is computed on the 978 prefixed digits
+			digits.setLength(9);
+			digits.insert(0, "978");
+			return digits.append(isbn13CheckDigit(digits)).toString();
+		}
+		return null;
+	}
+
+	// length of the optional prefix including its trailing space, or -1 if it is malformed
+	private static int prefixLength(CharSequence isbn) {
+		if (isbn.length() < 4 || isbn.charAt(0) != 'I' || isbn.charAt(1) != 'S' || isbn.charAt(2) != 'B' || isbn.charAt(3) != 'N')
+			return 0;
+		int i = 4;
+		if (i + 2 < isbn.length() && isbn.charAt(i) == '-' && isbn.charAt(i + 1) == '1'
+				&& (isbn.charAt(i + 2) == '0' || isbn.charAt(i + 2) == '3'))
+			i += 3;
+		if (i < isbn.length() && isbn.charAt(i) == ':')
+			i++;
+		return i < isbn.length() && isbn.charAt(i) == ' ' ? i + 1 : -1;
+	}
+
+	static char isbn13CheckDigit(CharSequence digits) {
+		int sum = 0;
+		for (int i = 0; i < 12; i++)
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		return (char) ('0' + (10 - sum % 10) % 10);
+	}
+
+	private static boolean isDigits(CharSequence value, int length) {
+		for (int i = 0; i < length; i++)
+			if (!Character.isDigit(value.charAt(i)))
+				return false;
+		return true;
+	}
+
+}
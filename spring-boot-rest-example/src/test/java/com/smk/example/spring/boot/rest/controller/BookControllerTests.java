@@ -0,0 +1,286 @@
+package com.smk.example.spring.boot.rest.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.repository.BookRepository;
+import com.smk.example.spring.boot.rest.service.BookService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private BookService bookService;
+
+	// deleted through the service so that the caches and the catalog version follow
+	@AfterEach
+	void tearDown() {
+		for (Book book : bookRepository.findAll())
+			bookService.deleteBook(book.getId());
+	}
+
+	@Test
+	void createsAndGetsABook() throws Exception {
+		long id = createBook("Title", "Author", "Publisher", 100);
+		mockMvc.perform(get("/books/{id}", id).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Title"))
+				.andExpect(jsonPath("$.publicationDate").value("01/02/2003"))
+				.andExpect(jsonPath("$.format").value("Paperback"))
+				.andExpect(header().string(HttpHeaders.ETAG, notNullValue()));
+	}
+
+	@Test
+	void tagsEachRepresentationOfABook() throws Exception {
+		long id = createBook("Title", "Author", "Publisher", 100);
+		String json = mockMvc.perform(get("/books/{id}", id).accept(MediaType.ALL)).andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, containsString(MediaType.APPLICATION_JSON_VALUE)))
+				.andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String cbor = mockMvc.perform(get("/books/{id}", id).accept(MediaType.APPLICATION_CBOR)).andExpect(status().isOk())
+				.andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(cbor).isNotEqualTo(json);
+		mockMvc.perform(get("/books/{id}", id).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/books/{id}", id).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cbor))
+				.andExpect(status().isNotModified())
+				.andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+		// a precondition on the book accepts the tag of any of its representations
+		mockMvc.perform(patch("/books/merge/{id}", id).contentType("application/merge-patch+json")
+				.accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, cbor).content("{\"pages\":321}"))
+				.andExpect(status().isOk());
+		mockMvc.perform(patch("/books/merge/{id}", id).contentType("application/merge-patch+json")
+				.accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, json).content("{\"pages\":322}"))
+				.andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	void returnsTheSelectedFieldsOfABook() throws Exception {
+		long id = createBook("Title", "Author", "Publisher", 100);
+		mockMvc.perform(get("/books/{id}", id).param("fields", "id,title").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.id").value(id))
+				.andExpect(jsonPath("$.title").value("Title")).andExpect(jsonPath("$.author").doesNotExist());
+	}
+
+	@Test
+	void returnsASingleSelectedFieldOfEveryBookAsObjects() throws Exception {
+		createBook("B", "Author", "Publisher", 100);
+		createBook("A", "Author", "Publisher", 100);
+		mockMvc.perform(get("/books").param("fields", "title").param("sort", "title").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.content", hasSize(2)))
+				.andExpect(jsonPath("$.content[0].title").value("A"))
+				.andExpect(jsonPath("$.content[1].title").value("B"));
+		mockMvc.perform(get("/books/").param("fields", "title").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$[0].title").value("A"));
+	}
+
+	@Test
+	void rejectsUnknownFields() throws Exception {
+		long id = createBook("Title", "Author", "Publisher", 100);
+		mockMvc.perform(get("/books/{id}", id).param("fields", "id,subtitle").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void filtersAndSortsThePagedCatalog() throws Exception {
+		createBook("A", "Author", "Other", 100);
+		createBook("B", "Author", "Other", 300);
+		createBook("C", "Author", "Other", 200);
+		createBook("D", "Author", "Publisher", 300);
+		mockMvc.perform(get("/books").param("publisher", "Other").param("pagesMin", "200").param("sort", "title,desc")
+				.accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalElements").value(2)).andExpect(jsonPath("$.content", hasSize(2)))
+				.andExpect(jsonPath("$.content[0].title").value("C"))
+				.andExpect(jsonPath("$.content[1].title").value("B"));
+		mockMvc.perform(get("/books").param("fields", "title").param("publisher", "Publisher")
+				.accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.content", hasSize(1))).andExpect(jsonPath("$.content[0].title").value("D"));
+	}
+
+	@Test
+	void refusesASortThatNoIndexLeadsAndAnEmptyRange() throws Exception {
+		mockMvc.perform(get("/books").param("sort", "pages").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/books").param("pagesMin", "300").param("pagesMax", "100").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void mergesAPatchIntoABook() throws Exception {
+		long id = createBook("Title", "Author", "Publisher", 100);
+		mockMvc.perform(patch("/books/merge/{id}", id).contentType("application/merge-patch+json")
+				.accept(MediaType.APPLICATION_JSON).content("{\"pages\":321,\"publisher\":\"Other\"}"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.pages").value(321))
+				.andExpect(jsonPath("$.publisher").value("Other")).andExpect(jsonPath("$.title").value("Title"))
+				.andExpect(jsonPath("$.version").value(1));
+	}
+
+	@Test
+	void rejectsAPatchOfAnUnknownProperty() throws Exception {
+		long id = createBook("Title", "Author", "Publisher", 100);
+		mockMvc.perform(patch("/books/patch/{id}", id).contentType("application/json-patch+json")
+				.accept(MediaType.APPLICATION_JSON).content("[{\"op\":\"replace\",\"path\":\"/subtitle\",\"value\":\"x\"}]"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void rejectsAPatchThatBreaksAConstraint() throws Exception {
+		long id = createBook("Title", "Author", "Publisher", 100);
+		mockMvc.perform(patch("/books/merge/{id}", id).contentType("application/merge-patch+json")
+				.accept(MediaType.APPLICATION_JSON).content("{\"pages\":-1}")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void scrollsThroughTheCatalogByTitle() throws Exception {
+		createBook("C", "Author", "Publisher", 100);
+		createBook("A", "Author", "Publisher", 100);
+		createBook("B", "Author", "Publisher", 100);
+		MvcResult first = mockMvc.perform(get("/books/scroll").param("size", "2").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.content[0].title").value("A"))
+				.andExpect(jsonPath("$.content[1].title").value("B")).andReturn();
+		String next = objectMapper.readTree(first.getResponse().getContentAsByteArray()).get("next").asText();
+		mockMvc.perform(get("/books/scroll").param("size", "2").param("cursor", next).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.content", hasSize(1)))
+				.andExpect(jsonPath("$.content[0].title").value("C")).andExpect(jsonPath("$.next").doesNotExist());
+	}
+
+	@Test
+	void reportsTheStatusOfEveryItemOfABatch() throws Exception {
+		String batch = "[" + bookJson("A", "Author", "Publisher", 100) + ","
+				+ "{\"title\":\"B\",\"author\":\"Author\",\"publicationDate\":\"01/02/2003\",\"publisher\":\"Publisher\",\"format\":\"Comic\"},"
+				+ "{\"id\":1,\"title\":\"C\",\"author\":\"Author\",\"publicationDate\":\"01/02/2003\",\"publisher\":\"Publisher\"},"
+				+ "{\"author\":\"Author\",\"publicationDate\":\"01/02/2003\",\"publisher\":\"Publisher\"},"
+				+ bookJson("E", "Author", "Publisher", 100) + "]";
+		mockMvc.perform(post("/books/batch").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+				.content(batch)).andExpect(status().isOk()).andExpect(jsonPath("$.created").value(2))
+				.andExpect(jsonPath("$.rejected").value(3)).andExpect(jsonPath("$.items", hasSize(5)))
+				.andExpect(jsonPath("$.items[0].status").value("CREATED"))
+				.andExpect(jsonPath("$.items[1].status").value("INVALID"))
+				.andExpect(jsonPath("$.items[2].status").value("INVALID"))
+				.andExpect(jsonPath("$.items[3].status").value("INVALID"))
+				.andExpect(jsonPath("$.items[4].status").value("CREATED"));
+	}
+
+	@Test
+	void rejectsOnlyTheConflictingItemsOfABatch() throws Exception {
+		String batch = "[" + bookJson("A", "Author", "Publisher", 100, "978-0-306-40615-7") + ","
+				+ bookJson("B", "Author", "Publisher", 100, "0-306-40615-2") + ","
+				+ bookJson("C", "Author", "Publisher", 100, null) + "]";
+		mockMvc.perform(post("/books/batch").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+				.content(batch)).andExpect(status().isOk()).andExpect(jsonPath("$.created").value(2))
+				.andExpect(jsonPath("$.items[0].status").value("CREATED"))
+				.andExpect(jsonPath("$.items[1].status").value("FAILED"))
+				.andExpect(jsonPath("$.items[2].status").value("CREATED"));
+	}
+
+	@Test
+	void refusesASecondBookWithTheSameIsbn() throws Exception {
+		mockMvc.perform(post("/books/").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+				.content(bookJson("A", "Author", "Publisher", 100, "978-0-306-40615-7"))).andExpect(status().isCreated());
+		mockMvc.perform(post("/books/").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+				.content(bookJson("B", "Author", "Publisher", 100, "0-306-40615-2"))).andExpect(status().isConflict())
+				.andExpect(jsonPath("$.errors[0]").value(containsString("ISBNs must be unique")));
+	}
+
+	@Test
+	void deletesAndMergesTheBooksMatchingAFilter() throws Exception {
+		long kept = createBook("A", "Author", "Publisher", 100);
+		long merged = createBook("B", "Author", "Other", 100);
+		createBook("C", "Author", "Other", 200);
+		mockMvc.perform(patch("/books").param("publisher", "Other").param("pagesMax", "100")
+				.contentType("application/merge-patch+json").accept(MediaType.APPLICATION_JSON).content("{\"pages\":150}"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.affected").value(1));
+		assertThat(bookRepository.findById(merged).get().getPages()).isEqualTo(150);
+		assertThat(bookRepository.findById(merged).get().getVersion()).isEqualTo(1L);
+		mockMvc.perform(delete("/books").param("publisher", "Other").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.affected").value(2));
+		assertThat(bookRepository.findAll()).extracting(Book::getId).containsExactly(kept);
+	}
+
+	@Test
+	void refusesABulkDeleteWithoutCriteria() throws Exception {
+		createBook("A", "Author", "Publisher", 100);
+		mockMvc.perform(delete("/books").accept(MediaType.APPLICATION_JSON)).andExpect(status().isBadRequest());
+		assertThat(bookRepository.count()).isEqualTo(1);
+	}
+
+	@Test
+	void deletesAndMergesBooksByIdsOfTheBody() throws Exception {
+		long first = createBook("A", "Author", "Publisher", 100);
+		long second = createBook("B", "Author", "Publisher", 100);
+		long kept = createBook("C", "Author", "Publisher", 100);
+		// more ids than an IN list takes, most of them of no book
+		List<Long> ids = LongStream.rangeClosed(kept + 1, kept + 1500).boxed().collect(Collectors.toList());
+		ids.add(first);
+		ids.add(second);
+		Map<String, Object> merge = Map.of("ids", ids, "patch", Map.of("author", "Other"));
+		mockMvc.perform(post("/books/merge").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(merge))).andExpect(status().isOk())
+				.andExpect(jsonPath("$.affected").value(2));
+		assertThat(bookRepository.findById(first).get().getAuthor()).isEqualTo("Other");
+		assertThat(bookRepository.findById(kept).get().getAuthor()).isEqualTo("Author");
+		mockMvc.perform(post("/books/delete").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(Map.of("ids", ids)))).andExpect(status().isOk())
+				.andExpect(jsonPath("$.affected").value(2));
+		assertThat(bookRepository.findAll()).extracting(Book::getId).containsExactly(kept);
+		mockMvc.perform(post("/books/delete").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+				.content("{\"ids\":[]}")).andExpect(status().isBadRequest());
+	}
+
+	private long createBook(String title, String author, String publisher, int pages) throws Exception {
+		MvcResult result = mockMvc.perform(post("/books/").contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON).content(bookJson(title, author, publisher, pages)))
+				.andExpect(status().isCreated()).andReturn();
+		return objectMapper.readTree(result.getResponse().getContentAsByteArray()).get("id").asLong();
+	}
+
+	private static String bookJson(String title, String author, String publisher, int pages) {
+		return bookJson(title, author, publisher, pages, null);
+	}
+
+	private static String bookJson(String title, String author, String publisher, int pages, String isbn) {
+		return String.format("{\"title\":\"%s\",\"author\":\"%s\",\"publicationDate\":\"01/02/2003\",\"publisher\":\"%s\","
+				+ "\"format\":\"Paperback\",\"pages\":%d%s}", title, author, publisher, pages,
+				isbn == null ? "" : ",\"isbn\":\"" + isbn + "\"");
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.smk.example.spring.boot.rest.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.smk.example.spring.boot.rest.service.BookService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BookResponseCacheFilterTests {
+
+	private static final String ETAG = "W/\"1\"";
+
+	private final AtomicInteger handled = new AtomicInteger();
+
+	// stands for the controller and the Vary interceptor
+	private final FilterChain chain = (request, response) -> {
+		handled.incrementAndGet();
+		HttpServletResponse httpResponse = (HttpServletResponse) response;
+		httpResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		httpResponse.setHeader(HttpHeaders.ETAG, ETAG);
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.getOutputStream().write("[]".getBytes(StandardCharsets.UTF_8));
+	};
+
+	private BookResponseCacheFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		BookService bookService = mock(BookService.class);
+		when(bookService.getCatalogVersion()).thenReturn("1");
+		filter = new BookResponseCacheFilter(bookService, new SimpleMeterRegistry(), 1 << 20, 1 << 10);
+	}
+
+	@Test
+	void replaysTheHeadersOfTheHandlerOnAHit() throws Exception {
+		MockHttpServletResponse miss = perform(null);
+		MockHttpServletResponse hit = perform(null);
+		assertThat(handled).hasValue(1);
+		assertThat(hit.getStatus()).isEqualTo(HttpStatus.OK.value());
+		assertThat(hit.getContentAsString()).isEqualTo(miss.getContentAsString());
+		assertThat(hit.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+		assertThat(hit.getHeaders(HttpHeaders.VARY)).containsExactly(HttpHeaders.ACCEPT);
+		assertThat(hit.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+	}
+
+	@Test
+	void replaysTheVaryHeaderOnANotModifiedHit() throws Exception {
+		perform(null);
+		MockHttpServletResponse hit = perform(ETAG);
+		assertThat(handled).hasValue(1);
+		assertThat(hit.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+		assertThat(hit.getHeaders(HttpHeaders.VARY)).containsExactly(HttpHeaders.ACCEPT);
+		assertThat(hit.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+		assertThat(hit.getContentLength()).isZero();
+	}
+
+	private MockHttpServletResponse perform(String ifNoneMatch) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+		request.addHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+		if (ifNoneMatch != null)
+			request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.smk.example.spring.boot.rest.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.jayway.jsonpath.JsonPath;
+import com.smk.example.spring.boot.rest.repository.ReactiveBookRepository;
+
+// own database, so that its schema is not recreated under the servlet tests
+@SpringBootTest(properties = {
+		"spring.datasource.url = jdbc:h2:mem:bookdb-reactive-test;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"spring.r2dbc.url = r2dbc:h2:mem:///bookdb-reactive-test?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE" })
+@AutoConfigureWebTestClient
+@ActiveProfiles({ "test", "reactive" })
+class ReactiveBookControllerTests {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private ReactiveBookRepository bookRepository;
+
+	@AfterEach
+	void tearDown() {
+		bookRepository.deleteAll().block();
+	}
+
+	@Test
+	void createsABookOnAPutToAMissingId() {
+		String json = "{\"title\":\"Title\",\"author\":\"Author\",\"publicationDate\":\"01/02/2003\","
+				+ "\"publisher\":\"Publisher\",\"format\":\"Paperback\",\"pages\":100,\"version\":3}";
+		byte[] created = webTestClient.put().uri("/books/{id}", 999_999).contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON).bodyValue(json).exchange()
+				.expectStatus().isCreated()
+				.expectBody().jsonPath("$.id").isNumber().jsonPath("$.version").isEqualTo(0)
+				.returnResult().getResponseBody();
+		Number id = JsonPath.read(new String(created), "$.id");
+		webTestClient.get().uri("/books/{id}", id).accept(MediaType.APPLICATION_JSON).exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.title").isEqualTo("Title");
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.smk.example.spring.boot.rest.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.exception.InvalidCursorException;
+
+class BookCursorTests {
+
+	@Test
+	void titleCursorRoundTrips() {
+		BookCursor cursor = BookCursor.after(BookCursor.Key.TITLE, book(42L, "Java: The Complete Reference"));
+		BookCursor decoded = BookCursor.decode(cursor.encode());
+		assertThat(decoded).isEqualTo(cursor);
+		assertThat(decoded.getTitle()).isEqualTo("Java: The Complete Reference");
+		assertThat(decoded.isFirst()).isFalse();
+	}
+
+	@Test
+	void idCursorRoundTripsWithoutTitle() {
+		BookCursor cursor = BookCursor.after(BookCursor.Key.ID, book(7L, "Title"));
+		BookCursor decoded = BookCursor.decode(cursor.encode());
+		assertThat(decoded).isEqualTo(cursor);
+		assertThat(decoded.getTitle()).isNull();
+	}
+
+	@Test
+	void tokenIsUrlSafe() {
+		String token = BookCursor.after(BookCursor.Key.TITLE, book(1L, "???>>>~~~ été")).encode();
+		assertThat(token).matches("[A-Za-z0-9_-]+");
+	}
+
+	@Test
+	void firstCursorHasNoPosition() {
+		assertThat(BookCursor.first(BookCursor.Key.TITLE).isFirst()).isTrue();
+	}
+
+	@Test
+	void rejectsMalformedTokens() {
+		assertThatThrownBy(() -> BookCursor.decode("not base64!")).isInstanceOf(InvalidCursorException.class);
+		assertThatThrownBy(() -> BookCursor.decode(encode("NAME:1"))).isInstanceOf(InvalidCursorException.class);
+		assertThatThrownBy(() -> BookCursor.decode(encode("ID:x"))).isInstanceOf(InvalidCursorException.class);
+		assertThatThrownBy(() -> BookCursor.decode(encode("ID:1:Title"))).isInstanceOf(InvalidCursorException.class);
+		assertThatThrownBy(() -> BookCursor.decode(encode("TITLE:1"))).isInstanceOf(InvalidCursorException.class);
+		assertThatThrownBy(() -> BookCursor.decode(encode("TITLE"))).isInstanceOf(InvalidCursorException.class);
+	}
+
+	private static String encode(String value) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Book book(Long id, String title) {
+		Book book = new Book();
+		book.setId(id);
+		book.setTitle(title);
+		return book;
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.smk.example.spring.boot.rest.patch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.smk.example.spring.boot.rest.entity.Book.Format;
+import com.smk.example.spring.boot.rest.exception.InvalidPatchException;
+import com.smk.example.spring.boot.rest.model.BookModel;
+
+class BookPatchCompilerTests {
+
+	private final BookPatchCompiler compiler = new BookPatchCompiler(Jackson2ObjectMapperBuilder.json().build());
+
+	private BookModel bookModel;
+
+	@BeforeEach
+	void setUp() {
+		bookModel = new BookModel(1L, "Title", "Author", LocalDate.of(2010, 5, 1), "Publisher", "978-0-306-40615-7",
+				Format.PAPERBACK, 100, LocalDateTime.of(2020, 1, 1, 0, 0), LocalDateTime.of(2020, 1, 1, 0, 0), 3L);
+	}
+
+	@Test
+	void mergePatchSetsTheGivenMembersOnly() {
+		Set<String> touched = mergePatch("{\"title\":\"New title\",\"pages\":250}").apply(bookModel);
+		assertThat(touched).containsExactly("title", "pages");
+		assertThat(bookModel.getTitle()).isEqualTo("New title");
+		assertThat(bookModel.getPages()).isEqualTo(250);
+		assertThat(bookModel.getAuthor()).isEqualTo("Author");
+	}
+
+	@Test
+	void mergePatchRemovesMembersSetToNull() {
+		Set<String> touched = mergePatch("{\"publisher\":null}").apply(bookModel);
+		assertThat(touched).containsExactly("publisher");
+		assertThat(bookModel.getPublisher()).isNull();
+	}
+
+	@Test
+	void mergePatchBindsValuesWithTheFormatsOfBookModel() {
+		mergePatch("{\"publicationDate\":\"24/12/1999\",\"format\":\"Audio\"}").apply(bookModel);
+		assertThat(bookModel.getPublicationDate()).isEqualTo(LocalDate.of(1999, 12, 24));
+		assertThat(bookModel.getFormat()).isEqualTo(Format.AUDIO);
+	}
+
+	@Test
+	void mergePatchLeavesReadOnlyPropertiesUnchanged() {
+		Set<String> touched = mergePatch("{\"updatedDate\":\"01/01/2030 10:00:00 AM\"}").apply(bookModel);
+		assertThat(touched).isEmpty();
+		assertThat(bookModel.getUpdatedDate()).isEqualTo(LocalDateTime.of(2020, 1, 1, 0, 0));
+	}
+
+	@Test
+	void mergePatchRejectsUnknownPropertiesAndOtherDocuments() {
+		assertThatThrownBy(() -> mergePatch("{\"subtitle\":\"x\"}")).isInstanceOf(InvalidPatchException.class);
+		assertThatThrownBy(() -> mergePatch("[]")).isInstanceOf(InvalidPatchException.class);
+		assertThatThrownBy(() -> mergePatch("{\"title\":")).isInstanceOf(InvalidPatchException.class);
+	}
+
+	@Test
+	void mergePatchRejectsValuesOfTheWrongType() {
+		BookPatch patch = mergePatch("{\"pages\":\"many\"}");
+		assertThatThrownBy(() -> patch.apply(bookModel)).isInstanceOf(InvalidPatchException.class);
+	}
+
+	@Test
+	void jsonPatchAppliesOperationsInOrder() {
+		Set<String> touched = jsonPatch("[{\"op\":\"test\",\"path\":\"/title\",\"value\":\"Title\"},"
+				+ "{\"op\":\"replace\",\"path\":\"/title\",\"value\":\"Second\"},"
+				+ "{\"op\":\"add\",\"path\":\"/pages\",\"value\":12},"
+				+ "{\"op\":\"remove\",\"path\":\"/isbn\"}]").apply(bookModel);
+		assertThat(touched).containsExactly("title", "pages", "isbn");
+		assertThat(bookModel.getTitle()).isEqualTo("Second");
+		assertThat(bookModel.getPages()).isEqualTo(12);
+		assertThat(bookModel.getIsbn()).isNull();
+	}
+
+	@Test
+	void jsonPatchMovesAndCopiesBetweenPropertiesOfTheSameType() {
+		Set<String> touched = jsonPatch("[{\"op\":\"copy\",\"from\":\"/author\",\"path\":\"/title\"},"
+				+ "{\"op\":\"move\",\"from\":\"/publisher\",\"path\":\"/author\"}]").apply(bookModel);
+		assertThat(touched).containsExactlyInAnyOrder("title", "author", "publisher");
+		assertThat(bookModel.getTitle()).isEqualTo("Author");
+		assertThat(bookModel.getAuthor()).isEqualTo("Publisher");
+		assertThat(bookModel.getPublisher()).isNull();
+	}
+
+	@Test
+	void jsonPatchFailsWhenATestFails() {
+		BookPatch patch = jsonPatch("[{\"op\":\"test\",\"path\":\"/pages\",\"value\":99},"
+				+ "{\"op\":\"replace\",\"path\":\"/title\",\"value\":\"Second\"}]");
+		assertThatThrownBy(() -> patch.apply(bookModel)).isInstanceOf(InvalidPatchException.class);
+	}
+
+	@Test
+	void jsonPatchIgnoresUnknownMembersOfOperations() {
+		jsonPatch("[{\"op\":\"replace\",\"path\":\"/pages\",\"comment\":{\"a\":[1,2]},\"value\":7}]").apply(bookModel);
+		assertThat(bookModel.getPages()).isEqualTo(7);
+	}
+
+	@Test
+	void jsonPatchRejectsInvalidOperations() {
+		assertThatThrownBy(() -> jsonPatch("{}")).isInstanceOf(InvalidPatchException.class);
+		assertThatThrownBy(() -> jsonPatch("[1]")).isInstanceOf(InvalidPatchException.class);
+		assertThatThrownBy(() -> jsonPatch("[{\"path\":\"/title\"}]")).isInstanceOf(InvalidPatchException.class);
+		assertThatThrownBy(() -> jsonPatch("[{\"op\":\"merge\",\"path\":\"/title\"}]")).isInstanceOf(InvalidPatchException.class);
+		assertThatThrownBy(() -> jsonPatch("[{\"op\":\"replace\",\"path\":\"/title\"}]")).isInstanceOf(InvalidPatchException.class);
+		assertThatThrownBy(() -> jsonPatch("[{\"op\":\"replace\",\"path\":\"title\",\"value\":\"x\"}]")).isInstanceOf(InvalidPatchException.class);
+		assertThatThrownBy(() -> jsonPatch("[{\"op\":\"replace\",\"path\":\"/title/0\",\"value\":\"x\"}]")).isInstanceOf(InvalidPatchException.class);
+		assertThatThrownBy(() -> jsonPatch("[{\"op\":\"move\",\"path\":\"/title\"}]")).isInstanceOf(InvalidPatchException.class);
+		assertThatThrownBy(() -> jsonPatch("[{\"op\":\"copy\",\"from\":\"/pages\",\"path\":\"/title\"}]")).isInstanceOf(InvalidPatchException.class);
+	}
+
+	private BookPatch mergePatch(String document) {
+		return compiler.compileMergePatch(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private BookPatch jsonPatch(String document) {
+		return compiler.compileJsonPatch(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)));
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.smk.example.spring.boot.rest.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.entity.Book.Format;
+import com.smk.example.spring.boot.rest.model.BookFilter;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookSpecificationsTests {
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	private Book first;
+
+	private Book second;
+
+	@BeforeEach
+	void setUp() {
+		bookRepository.deleteAll();
+		first = bookRepository.save(book("A", "Author 1", "Publisher 1", Format.PAPERBACK, 100, LocalDate.of(2001, 1, 1)));
+		second = bookRepository.save(book("B", "Author 1", "Publisher 2", Format.HARDBACK, 200, LocalDate.of(2005, 6, 30)));
+		bookRepository.save(book("C", "Author 2", "Publisher 2", Format.HARDBACK, 300, LocalDate.of(2010, 12, 31)));
+	}
+
+	@AfterEach
+	void tearDown() {
+		bookRepository.deleteAll();
+	}
+
+	@Test
+	void matchesEveryBookWithoutCriteria() {
+		assertThat(titles(new BookFilter())).containsExactly("A", "B", "C");
+	}
+
+	@Test
+	void matchesEachCriterion() {
+		BookFilter filter = new BookFilter();
+		filter.setAuthor("Author 1");
+		assertThat(titles(filter)).containsExactly("A", "B");
+		filter = new BookFilter();
+		filter.setPublisher("Publisher 2");
+		assertThat(titles(filter)).containsExactly("B", "C");
+		filter = new BookFilter();
+		filter.setFormat(Format.PAPERBACK);
+		assertThat(titles(filter)).containsExactly("A");
+		filter = new BookFilter();
+		filter.setIds(Arrays.asList(second.getId(), first.getId()));
+		assertThat(titles(filter)).containsExactly("A", "B");
+	}
+
+	@Test
+	void includesTheBoundsOfTheRanges() {
+		BookFilter filter = new BookFilter();
+		filter.setPagesMin(200);
+		filter.setPagesMax(300);
+		assertThat(titles(filter)).containsExactly("B", "C");
+		filter = new BookFilter();
+		filter.setPublishedFrom(LocalDate.of(2001, 1, 1));
+		filter.setPublishedTo(LocalDate.of(2005, 6, 30));
+		assertThat(titles(filter)).containsExactly("A", "B");
+	}
+
+	@Test
+	void combinesTheCriteria() {
+		BookFilter filter = new BookFilter();
+		filter.setPublisher("Publisher 2");
+		filter.setAuthor("Author 1");
+		filter.setPagesMin(150);
+		assertThat(titles(filter)).containsExactly("B");
+		filter.setPagesMin(250);
+		assertThat(titles(filter)).isEmpty();
+	}
+
+	private List<String> titles(BookFilter filter) {
+		return bookRepository.findAll(BookSpecifications.matching(filter), Sort.by("title")).stream()
+				.map(Book::getTitle).collect(Collectors.toList());
+	}
+
+	private static Book book(String title, String author, String publisher, Format format, int pages,
+			LocalDate publicationDate) {
+		Book book = new Book();
+		book.setTitle(title);
+		book.setAuthor(author);
+		book.setPublicationDate(publicationDate);
+		book.setPublisher(publisher);
+		book.setFormat(format);
+		book.setPages(pages);
+		return book;
+	}
+
+}
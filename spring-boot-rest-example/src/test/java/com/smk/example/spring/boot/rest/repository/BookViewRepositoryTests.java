@@ -0,0 +1,109 @@
+package com.smk.example.spring.boot.rest.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.model.BookField;
+import com.smk.example.spring.boot.rest.model.BookFilter;
+import com.smk.example.spring.boot.rest.model.BookView;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookViewRepositoryTests {
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private Book first;
+
+	private Book second;
+
+	private Book third;
+
+	@BeforeEach
+	void setUp() {
+		bookRepository.deleteAll();
+		second = bookRepository.save(book("B", "Author 2"));
+		first = bookRepository.save(book("A", "Author 1"));
+		third = bookRepository.save(book("C", "Author 1"));
+	}
+
+	@AfterEach
+	void tearDown() {
+		bookRepository.deleteAll();
+	}
+
+	@Test
+	void selectsASingleFieldAsRows() throws Exception {
+		List<BookView> views = bookRepository.findViews(EnumSet.of(BookField.TITLE), Sort.by("title", "id"));
+		assertThat(json(views)).isEqualTo(json("[{\"title\":\"A\"},{\"title\":\"B\"},{\"title\":\"C\"}]"));
+	}
+
+	@Test
+	void writesTheSelectedFieldsWithTheFormatsOfBookModel() throws Exception {
+		List<BookView> views = bookRepository.findViews(EnumSet.of(BookField.PUBLICATION_DATE, BookField.ID),
+				Sort.by("title", "id"));
+		assertThat(json(views.get(0)))
+				.isEqualTo(json("{\"id\":" + first.getId() + ",\"publicationDate\":\"01/02/2003\"}"));
+	}
+
+	@Test
+	void pagesTheViewsOfTheBooksMatchingAFilter() throws Exception {
+		BookFilter filter = new BookFilter();
+		filter.setAuthor("Author 1");
+		Page<BookView> page = bookRepository.findViews(EnumSet.of(BookField.TITLE), BookSpecifications.matching(filter),
+				PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "title")));
+		assertThat(json(page.getContent())).isEqualTo(json("[{\"title\":\"C\"}]"));
+		assertThat(page.getTotalElements()).isEqualTo(2);
+	}
+
+	@Test
+	void keepsTheOrderOfTheIdsAndSkipsMissingBooks() throws Exception {
+		List<BookView> views = bookRepository.findViewsByIds(EnumSet.of(BookField.TITLE),
+				Arrays.asList(third.getId(), Long.MAX_VALUE, first.getId(), second.getId()));
+		assertThat(json(views)).isEqualTo(json("[{\"title\":\"C\"},{\"title\":\"A\"},{\"title\":\"B\"}]"));
+	}
+
+	private JsonNode json(Object value) throws JsonProcessingException {
+		return objectMapper.readTree(objectMapper.writeValueAsString(value));
+	}
+
+	private JsonNode json(String value) throws JsonProcessingException {
+		return objectMapper.readTree(value);
+	}
+
+	private static Book book(String title, String author) {
+		Book book = new Book();
+		book.setTitle(title);
+		book.setAuthor(author);
+		book.setPublicationDate(LocalDate.of(2003, 2, 1));
+		book.setPublisher("Publisher");
+		book.setFormat(Book.Format.PAPERBACK);
+		book.setPages(100);
+		return book;
+	}
+
+}
@@ -0,0 +1,194 @@
+package com.smk.example.spring.boot.rest.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.smk.example.spring.boot.rest.entity.Book;
+import com.smk.example.spring.boot.rest.entity.BookImport;
+import com.smk.example.spring.boot.rest.entity.BookImport.Format;
+import com.smk.example.spring.boot.rest.entity.BookImport.State;
+import com.smk.example.spring.boot.rest.exception.InvalidImportException;
+import com.smk.example.spring.boot.rest.model.BookBatchItemResult;
+import com.smk.example.spring.boot.rest.model.BookBatchItemResult.Status;
+import com.smk.example.spring.boot.rest.model.BookImportStatus;
+import com.smk.example.spring.boot.rest.repository.BookImportRepository;
+import com.smk.example.spring.boot.rest.repository.BookRepository;
+
+// the test profile imports in chunks of two rows
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookImporterTests {
+
+	private static final String HEADER = "title,author,publicationDate,publisher,isbn,format,pages";
+
+	@Autowired
+	private BookImporter bookImporter;
+
+	@Autowired
+	private BookImportService bookImportService;
+
+	@Autowired
+	private BookImportRepository bookImportRepository;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private BookService bookService;
+
+	@Value("${book.import.directory}")
+	private String directory;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		Files.createDirectories(Paths.get(directory));
+	}
+
+	// deleted through the service so that the caches and the catalog version follow
+	@AfterEach
+	void tearDown() throws Exception {
+		for (Book book : bookRepository.findAll())
+			bookService.deleteBook(book.getId());
+		bookImportRepository.deleteAll();
+		for (String name : Arrays.asList("books.csv", "books.ndjson"))
+			Files.deleteIfExists(Paths.get(directory, name));
+	}
+
+	@Test
+	void importsACsvFile() throws Exception {
+		write("books.csv", HEADER, csvRow("A", "0-306-40615-2"), csvRow("B", null), ",Author,01/02/2003,Publisher,,,100",
+				csvRow("C", null));
+		BookImportStatus status = await(bookImporter.startImport("books.csv", Format.CSV).getId());
+		assertThat(status.getState()).isEqualTo(State.COMPLETED);
+		assertThat(status.getImported()).isEqualTo(3);
+		assertThat(status.getRejected()).isEqualTo(1);
+		assertThat(status.getRejects()).extracting(BookBatchItemResult::getIndex, BookBatchItemResult::getStatus)
+				.containsExactly(tuple(4, Status.INVALID));
+		assertThat(titles()).containsExactly("A", "B", "C");
+		assertThat(bookRepository.findByTitle("A").get().getIsbn()).isEqualTo("0-306-40615-2");
+	}
+
+	@Test
+	void importsAnNdjsonFile() throws Exception {
+		write("books.ndjson", ndjsonRow("A"), "{\"title\":", ndjsonRow("B"));
+		BookImportStatus status = await(bookImporter.startImport("books.ndjson", Format.NDJSON).getId());
+		assertThat(status.getState()).isEqualTo(State.COMPLETED);
+		assertThat(status.getImported()).isEqualTo(2);
+		assertThat(status.getRejected()).isEqualTo(1);
+		assertThat(status.getRejects()).extracting(BookBatchItemResult::getIndex).containsExactly(2);
+		assertThat(titles()).containsExactly("A", "B");
+	}
+
+	@Test
+	void rejectsOnlyTheRowOfAChunkWhoseIsbnIsTaken() throws Exception {
+		Book taken = book("Taken");
+		taken.setIsbn("0-306-40615-2");
+		bookService.saveBook(taken);
+		Path file = write("books.csv", HEADER, csvRow("A", "0-306-40615-2"), csvRow("B", null), csvRow("C", null));
+		BookImportStatus status = await(bookImporter.startImport("books.csv", Format.CSV).getId());
+		assertThat(status.getState()).isEqualTo(State.COMPLETED);
+		assertThat(status.getImported()).isEqualTo(2);
+		assertThat(status.getRejected()).isEqualTo(1);
+		assertThat(status.getRejects()).hasSize(1);
+		assertThat(status.getRejects().get(0).getIndex()).isEqualTo(2);
+		assertThat(status.getRejects().get(0).getStatus()).isEqualTo(Status.FAILED);
+		assertThat(status.getRejects().get(0).getErrors().get(0)).contains("already in the catalog");
+		// the checkpoint has passed the conflicting chunk
+		assertThat(status.getOffset()).isEqualTo(Files.size(file));
+		assertThat(status.getLine()).isEqualTo(4);
+		assertThat(titles()).containsExactly("B", "C", "Taken");
+	}
+
+	@Test
+	void resumesAFailedImportAfterItsLastCommittedChunk() throws Exception {
+		String committed = String.join("\n", HEADER, csvRow("A", null), csvRow("B", null)) + "\n";
+		Path file = write("books.csv", HEADER, csvRow("A", null), csvRow("B", null), csvRow("C", null), csvRow("D", null));
+		// an import that failed after committing its first chunk
+		BookImport bookImport = bookImportService.createImport("books.csv", Format.CSV, Files.size(file),
+				Files.getLastModifiedTime(file).toMillis());
+		bookImportService.saveChunk(bookImport.getId(), Arrays.asList(book("A"), book("B")),
+				committed.getBytes(StandardCharsets.UTF_8).length, 3, 0);
+		bookImportService.updateState(bookImport.getId(), State.FAILED, "Interrupted");
+		BookImportStatus status = await(bookImporter.resumeImport(bookImport.getId()).getId());
+		assertThat(status.getState()).isEqualTo(State.COMPLETED);
+		assertThat(status.getImported()).isEqualTo(4);
+		assertThat(status.getRejected()).isZero();
+		assertThat(titles()).containsExactly("A", "B", "C", "D");
+	}
+
+	@Test
+	void refusesToResumeAnImportWhoseFileHasChanged() throws Exception {
+		Path file = write("books.csv", HEADER, csvRow("A", null));
+		BookImport bookImport = bookImportService.createImport("books.csv", Format.CSV, Files.size(file),
+				Files.getLastModifiedTime(file).toMillis());
+		bookImportService.updateState(bookImport.getId(), State.FAILED, "Interrupted");
+		Files.write(file, (csvRow("B", null) + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		assertThatThrownBy(() -> bookImporter.resumeImport(bookImport.getId()))
+				.isInstanceOf(InvalidImportException.class).hasMessageContaining("has changed");
+		assertThat(bookImporter.getImportStatus(bookImport.getId()).getState()).isEqualTo(State.FAILED);
+		assertThat(titles()).isEmpty();
+	}
+
+	// the import runs on its own thread
+	private BookImportStatus await(Long id) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		BookImportStatus status = bookImporter.getImportStatus(id);
+		while (status.getState() == State.RUNNING && System.nanoTime() < deadline) {
+			Thread.sleep(50);
+			status = bookImporter.getImportStatus(id);
+		}
+		return status;
+	}
+
+	private Path write(String name, String... lines) throws Exception {
+		return Files.write(Paths.get(directory, name), (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+	}
+
+	private List<String> titles() {
+		return bookRepository.findAll(Sort.by("title")).stream().map(Book::getTitle).collect(Collectors.toList());
+	}
+
+	private static String csvRow(String title, String isbn) {
+		return String.format("%s,Author,01/02/2003,Publisher,%s,Paperback,100", title, isbn == null ? "" : isbn);
+	}
+
+	private static String ndjsonRow(String title) {
+		return String.format("{\"title\":\"%s\",\"author\":\"Author\",\"publicationDate\":\"01/02/2003\","
+				+ "\"publisher\":\"Publisher\",\"format\":\"Paperback\",\"pages\":100}", title);
+	}
+
+	private static Book book(String title) {
+		Book book = new Book();
+		book.setTitle(title);
+		book.setAuthor("Author");
+		book.setPublicationDate(LocalDate.of(2003, 2, 1));
+		book.setPublisher("Publisher");
+		book.setFormat(Book.Format.PAPERBACK);
+		book.setPages(100);
+		return book;
+	}
+
+}
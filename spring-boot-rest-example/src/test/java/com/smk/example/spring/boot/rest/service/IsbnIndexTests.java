@@ -0,0 +1,81 @@
+package com.smk.example.spring.boot.rest.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IsbnIndexTests {
+
+	private final IsbnIndex index = new IsbnIndex();
+
+	@Test
+	void findsPutEntries() {
+		index.put("9780306406157", 1L);
+		index.put("9781861972712", 2L);
+		assertThat(index.get("9780306406157")).contains(1L);
+		assertThat(index.get("9781861972712")).contains(2L);
+		assertThat(index.get("9791234567896")).isEmpty();
+		assertThat(index.size()).isEqualTo(2);
+	}
+
+	@Test
+	void putReplacesTheIdOfAnIsbn() {
+		index.put("9780306406157", 1L);
+		index.put("9780306406157", 5L);
+		assertThat(index.get("9780306406157")).contains(5L);
+		assertThat(index.size()).isEqualTo(1);
+	}
+
+	@Test
+	void removeKeepsAnEntryReassignedToAnotherBook() {
+		index.put("9780306406157", 1L);
+		index.remove("9780306406157", 2L);
+		assertThat(index.get("9780306406157")).contains(1L);
+		index.remove("9780306406157", 1L);
+		assertThat(index.get("9780306406157")).isEmpty();
+		assertThat(index.size()).isZero();
+	}
+
+	@Test
+	void removeKeepsTheOtherEntriesOfAFullTableReachable() {
+		// just below the resize threshold of the initial table, where probe sequences are longest
+		verifyAgainstMap(700, new Random(42));
+	}
+
+	@Test
+	void removeKeepsTheOtherEntriesReachableAfterResizes() {
+		verifyAgainstMap(20000, new Random(7));
+	}
+
+	// consecutive ISBNs, as a publisher assigns them, are removed in random order and every entry is checked each time
+	private void verifyAgainstMap(int count, Random random) {
+		Map<String, Long> expected = new HashMap<String, Long>();
+		List<String> isbns = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++) {
+			String isbn = String.format("978%010d", 1000000L + i);
+			isbns.add(isbn);
+			expected.put(isbn, (long) i + 1);
+			index.put(isbn, i + 1);
+		}
+		Collections.shuffle(isbns, random);
+		int checkEvery = Math.max(1, count / 100);
+		for (int i = 0; i < isbns.size(); i++) {
+			String isbn = isbns.get(i);
+			index.remove(isbn, expected.remove(isbn));
+			assertThat(index.get(isbn)).isEmpty();
+			if (i % checkEvery == 0) {
+				for (Map.Entry<String, Long> entry : expected.entrySet())
+					assertThat(index.get(entry.getKey())).contains(entry.getValue());
+			}
+		}
+		assertThat(index.size()).isZero();
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.smk.example.spring.boot.rest.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class IsbnsTests {
+
+	@ParameterizedTest
+	@ValueSource(strings = { "0306406152", "0-306-40615-2", "0 306 40615 2", "080442957X", "0-8044-2957-X",
+			"9780306406157", "978-0-306-40615-7", "978 0 306 40615 7", "9791090636071", "979-10-90636-07-1",
+			"ISBN 978-0-306-40615-7", "ISBN-13: 978-0-306-40615-7", "ISBN-10 0-306-40615-2", "ISBN: 0306406152" })
+	void acceptsWellFormedIsbnsWithTheirCheckDigit(String isbn) {
+		assertThat(Isbns.isValid(isbn)).isTrue();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "", "0306406153", "9780306406158", "979-10-90636-07-2", "9770306406157",
+			"977-0-306-40615-7", "030640615x", "X306406152", "0-306-40615-2-", "-0306406152", "0--306-40615-2",
+			" 0306406152", "97803064061-57", "978-0-306-406157", "0-306-4061-52", "978-123456-1-2345-6",
+			"978-0-306-40615-7-1", "123456789012345", "ISBN0306406152", "ISBN-11 0306406152" })
+	void rejectsMalformedIsbnsAndWrongCheckDigits(String isbn) {
+		assertThat(Isbns.isValid(isbn)).isFalse();
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "0306406152, 9780306406157", "0-306-40615-2, 9780306406157", "ISBN-10 0-306-40615-2, 9780306406157",
+			"0-8044-2957-X, 9780804429573", "978-0-306-40615-7, 9780306406157", "ISBN 978 0 306 40615 7, 9780306406157",
+			"979-10-90636-07-1, 9791090636071" })
+	void normalizesToTheThirteenDigits(String isbn, String normalized) {
+		assertThat(Isbns.normalize(isbn)).isEqualTo(normalized);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "ISBN0306406152", "X306406152", "978-0-306-40615-7-1", "123456789012345" })
+	void doesNotNormalizeValuesNotShapedAsIsbns(String isbn) {
+		assertThat(Isbns.normalize(isbn)).isNull();
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "978030640615, 7", "979109063607, 1", "978080442957, 3" })
+	void computesTheIsbn13CheckDigit(String digits, char checkDigit) {
+		assertThat(Isbns.isbn13CheckDigit(digits)).isEqualTo(checkDigit);
+	}
+
+}